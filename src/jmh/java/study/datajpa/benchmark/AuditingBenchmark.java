@@ -0,0 +1,79 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.auditing.AuditingHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ 엔티티 한 건당 auditing 비용 (CachedAuditorAware)
+   auditorCache=false : 엔티티마다 UUID.randomUUID() (SecureRandom)
+   auditorCache=true  : 트랜잭션에 한 번
+   stamp  : 한 트랜잭션에서 AuditingEntityListener 가 부르는 AuditingHandler.markCreated 만 batchSize 번 (DB 없음)
+   insert : saveAllBatched 로 batchSize 건 insert
+ @OperationsPerInvocation 으로 나눠서 결과는 엔티티 한 건당 시간이다.
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class AuditingBenchmark {
+
+    private static final int BATCH_SIZE = 1_000;
+
+    @Param({"false", "true"})
+    public boolean auditorCache;
+
+    private ConfigurableApplicationContext context;
+    private AuditingHandler auditingHandler;
+    private MemberRepository memberRepository;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("auditing_bench", "app.auditor-cache.enabled=" + auditorCache);
+        auditingHandler = context.getBean(AuditingHandler.class); // @EnableJpaAuditing 이 등록하는 jpaAuditingHandler
+        memberRepository = context.getBean(MemberRepository.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private static List<Member> newMembers() {
+        List<Member> members = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            members.add(new Member("auditBench", i));
+        }
+        return members;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<Member> stamp() {
+        List<Member> members = newMembers();
+        return transactionTemplate.execute(status -> {
+            for (Member member : members) {
+                auditingHandler.markCreated(member);
+            }
+            return members;
+        });
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int insert() {
+        return memberRepository.saveAllBatched(newMembers(), 100);
+    }
+}
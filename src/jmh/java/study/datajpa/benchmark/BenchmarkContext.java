@@ -0,0 +1,83 @@
+package study.datajpa.benchmark;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.datajpa.DataJpaApplication;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ 벤치마크용 스프링 컨텍스트.
+ tcp H2 대신 in-memory H2 를 띄우고, 로그/p6spy/hibernate 통계는 꺼서 측정값에 섞이지 않게 한다.
+*/
+public final class BenchmarkContext {
+
+    private static final int SEED_BATCH_SIZE = 10_000;
+
+    private BenchmarkContext() {
+    }
+
+    public static ConfigurableApplicationContext start(String dbName, String... extraProperties) {
+        /* application.yml 보다 우선해야 하므로 default properties 가 아니라 command line 인자로 넘긴다. */
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:" + dbName + ";DB_CLOSE_DELAY=-1",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=warn",
+                "--logging.level.org.hibernate.SQL=warn",
+                "--decorator.datasource.enabled=false",
+                "--spring.jpa.properties.hibernate.generate_statistics=false"));
+        for (String property : extraProperties) {
+            args.add("--" + property);
+        }
+
+        SpringApplication application = new SpringApplication(DataJpaApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        return application.run(args.toArray(String[]::new));
+    }
+
+    /*
+     repository 로 1M 건을 넣으면 seed 만 몇 분이 걸리므로 JDBC batch 로 직접 넣는다.
+     id 는 이미 들어있는 데이터(MemberController.init) 뒤에서부터 사용한다.
+    */
+    public static void seed(ConfigurableApplicationContext context, int memberCount, int teamCount) {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        long teamIdBase = jdbcTemplate.queryForObject("select coalesce(max(team_id), 0) from team", Long.class);
+        long memberIdBase = jdbcTemplate.queryForObject("select coalesce(max(member_id), 0) from member", Long.class);
+
+        List<Object[]> teams = new ArrayList<>(Math.min(teamCount, SEED_BATCH_SIZE));
+        for (int i = 0; i < teamCount; i++) {
+            teams.add(new Object[]{teamIdBase + i + 1, teamName(i)});
+            if (teams.size() == SEED_BATCH_SIZE) {
+                jdbcTemplate.batchUpdate("insert into team (team_id, name) values (?, ?)", teams);
+                teams.clear();
+            }
+        }
+        jdbcTemplate.batchUpdate("insert into team (team_id, name) values (?, ?)", teams);
+
+        List<Object[]> members = new ArrayList<>(SEED_BATCH_SIZE);
+        for (int i = 0; i < memberCount; i++) {
+            members.add(new Object[]{memberIdBase + i + 1, username(i), age(i), teamIdBase + (i % teamCount) + 1});
+            if (members.size() == SEED_BATCH_SIZE) {
+                jdbcTemplate.batchUpdate("insert into member (member_id, username, age, team_id) values (?, ?, ?, ?)", members);
+                members.clear();
+            }
+        }
+        jdbcTemplate.batchUpdate("insert into member (member_id, username, age, team_id) values (?, ?, ?, ?)", members);
+    }
+
+    public static String username(int i) {
+        return "member" + i;
+    }
+
+    public static String teamName(int i) {
+        return "team" + i;
+    }
+
+    public static int age(int i) {
+        return i % 100;
+    }
+}
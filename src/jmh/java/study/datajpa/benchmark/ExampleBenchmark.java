@@ -0,0 +1,105 @@
+package study.datajpa.benchmark;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.jpa.convert.QueryByExamplePredicateBuilder;
+import org.springframework.data.jpa.repository.query.EscapeCharacter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+ Query by Example (MemberRepositoryTest.examples 와 같은 probe)
+   criteria : spring data 기본 구현 (QueryByExamplePredicateBuilder). 호출마다 criteria 를 만들고, team probe 가 있으면 비어있어도 join
+   cached   : MemberRepositoryImpl.findAll(Example) -> MemberExampleQuery -> 모양별 jpql 재사용
+ *WithTeam  : username + team.name 조건
+ *EmptyTeam : username 조건 + 값이 하나도 없는 team probe (cached 는 join 을 빼버린다)
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class ExampleBenchmark {
+
+    private static final ExampleMatcher MATCHER = ExampleMatcher.matching().withIgnorePaths("age");
+
+    @Param({"1000000"})
+    public int memberCount;
+
+    @Param({"100"})
+    public int teamCount;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private EntityManager em;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("example_bench");
+        BenchmarkContext.seed(context, memberCount, teamCount);
+        memberRepository = context.getBean(MemberRepository.class);
+        em = context.getBean(EntityManager.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private Example<Member> probe(boolean withTeamName) {
+        int i = ThreadLocalRandom.current().nextInt(memberCount);
+        Member member = new Member(BenchmarkContext.username(i));
+        member.setTeam(new Team(withTeamName ? BenchmarkContext.teamName(i % teamCount) : null));
+        return Example.of(member, MATCHER);
+    }
+
+    private List<Member> criteria(Example<Member> example) {
+        return transactionTemplate.execute(status -> {
+            CriteriaBuilder builder = em.getCriteriaBuilder();
+            CriteriaQuery<Member> query = builder.createQuery(Member.class);
+            Root<Member> root = query.from(Member.class);
+            query.where(QueryByExamplePredicateBuilder.getPredicate(root, builder, example, EscapeCharacter.DEFAULT));
+            return em.createQuery(query.select(root)).getResultList();
+        });
+    }
+
+    private List<Member> cached(Example<Member> example) {
+        return transactionTemplate.execute(status -> memberRepository.findAll(example));
+    }
+
+    @Benchmark
+    public List<Member> criteriaWithTeam() {
+        return criteria(probe(true));
+    }
+
+    @Benchmark
+    public List<Member> cachedWithTeam() {
+        return cached(probe(true));
+    }
+
+    @Benchmark
+    public List<Member> criteriaEmptyTeam() {
+        return criteria(probe(false));
+    }
+
+    @Benchmark
+    public List<Member> cachedEmptyTeam() {
+        return cached(probe(false));
+    }
+}
@@ -0,0 +1,84 @@
+package study.datajpa.benchmark;
+
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ writer 스레드 1 / 8 / 32 개가 동시에 Member 를 insert 할 때 id 생성 방식별 처리량 (StripedSequenceGenerator)
+   stripes=1      : 블록 하나를 모두가 같이 쓴다. (hibernate pooled-lo 와 같은 구조)
+   stripes=32     : 스레드마다 자기 블록
+   time-ordered   : 시퀀스 호출 없이 시간순 id
+ op 하나 = 트랜잭션 하나에 insertsPerOp 건 persist + flush. 초당 insert 수 = ops/s * insertsPerOp
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class IdGeneratorBenchmark {
+
+    @Param({"stripes=1", "stripes=32", "time-ordered"})
+    public String generator;
+
+    @Param({"50"})
+    public int blockSize;
+
+    @Param({"20"})
+    public int insertsPerOp;
+
+    private ConfigurableApplicationContext context;
+    private EntityManager em;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String setting = generator.equals("time-ordered")
+                ? "spring.jpa.properties.app.id.member_seq.time-ordered=true"
+                : "spring.jpa.properties.app.id.member_seq." + generator;
+        context = BenchmarkContext.start("id_bench",
+                setting,
+                "spring.jpa.properties.app.id.member_seq.block-size=" + blockSize,
+                "spring.datasource.hikari.maximum-pool-size=40");
+        em = context.getBean(EntityManager.class); // 트랜잭션마다 자기 EntityManager 로 연결되는 shared proxy
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private void insert() {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < insertsPerOp; i++) {
+                em.persist(new Member("idBench", i));
+            }
+            em.flush();
+        });
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void writers1() {
+        insert();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void writers8() {
+        insert();
+    }
+
+    @Benchmark
+    @Threads(32)
+    public void writers32() {
+        insert();
+    }
+}
@@ -0,0 +1,96 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.UsernameOnlyDto;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+ MemberRepository 에 선언된 쿼리 모양(파생 쿼리, @Query, fetch join, @EntityGraph, DTO, 동적 프로젝션, 페이징)을 비교한다.
+ Throughput + SampleTime(p99) 을 같이 보고, allocation 은 ./gradlew jmh 의 -prof gc 결과(gc.alloc.rate.norm)를 본다.
+ 전체 조회(findMemberFetchJoin, findAll, findMemberDto) 는 memberCount 만큼 다 읽으니 1M 에서는 ops/s 가 아주 낮게 나오는 게 정상.
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class MemberRepositoryBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int memberCount;
+
+    @Param({"100", "10000"})
+    public int teamCount;
+
+    @Param({"20"})
+    public int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("member_bench");
+        BenchmarkContext.seed(context, memberCount, teamCount);
+        memberRepository = context.getBean(MemberRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private int randomIndex() {
+        return ThreadLocalRandom.current().nextInt(memberCount);
+    }
+
+    @Benchmark
+    public List<Member> findByUsername() {
+        return memberRepository.findByUsername(BenchmarkContext.username(randomIndex()));
+    }
+
+    @Benchmark
+    public List<Member> findUser() {
+        int i = randomIndex();
+        return memberRepository.findUser(BenchmarkContext.username(i), BenchmarkContext.age(i));
+    }
+
+    @Benchmark
+    public List<Member> findMemberFetchJoin() {
+        return memberRepository.findMemberFetchJoin();
+    }
+
+    @Benchmark
+    public List<Member> findAllEntityGraph() {
+        return memberRepository.findAll();
+    }
+
+    @Benchmark
+    public List<MemberDto> findMemberDto() {
+        return memberRepository.findMemberDto();
+    }
+
+    @Benchmark
+    public List<UsernameOnlyDto> findProjection3ByUsername() {
+        return memberRepository.findProjection3ByUsername(BenchmarkContext.username(randomIndex()), UsernameOnlyDto.class);
+    }
+
+    @Benchmark
+    public Page<Member> findByAge() {
+        int lastPage = Math.max(memberCount / pageSize - 1, 0);
+        PageRequest pageRequest = PageRequest.of(ThreadLocalRandom.current().nextInt(lastPage + 1), pageSize,
+                Sort.by(Sort.Direction.DESC, "username"));
+        return memberRepository.findByAge(BenchmarkContext.age(randomIndex()), pageRequest);
+    }
+}
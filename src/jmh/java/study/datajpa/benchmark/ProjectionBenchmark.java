@@ -0,0 +1,93 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.NestedClosedProjections;
+import study.datajpa.repository.UsernameOnlyDto;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+ 같은 프로젝션을 spring data 프로젝션(proxy) 과 MemberProjections(tuple) 로 만들 때
+   dto    : UsernameOnlyDto
+   nested : NestedClosedProjections (spring data 는 Team 엔티티를 통째로 읽는다)
+ getter 까지 호출해서 값을 실제로 꺼내는 비용을 포함한다. allocation 은 -prof gc 의 gc.alloc.rate.norm (B/op).
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ProjectionBenchmark {
+
+    @Param({"100000"})
+    public int memberCount;
+
+    @Param({"100"})
+    public int teamCount;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("projection_bench");
+        BenchmarkContext.seed(context, memberCount, teamCount);
+        memberRepository = context.getBean(MemberRepository.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private String randomUsername() {
+        return BenchmarkContext.username(ThreadLocalRandom.current().nextInt(memberCount));
+    }
+
+    private static int touchDto(List<UsernameOnlyDto> result) {
+        int length = 0;
+        for (UsernameOnlyDto dto : result) {
+            length += dto.getUsername().length();
+        }
+        return length;
+    }
+
+    private static int touchNested(List<NestedClosedProjections> result) {
+        int length = 0;
+        for (NestedClosedProjections projection : result) {
+            length += projection.getUsername().length() + projection.getTeam().getName().length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public int proxyDto() {
+        return touchDto(memberRepository.findProjection3ByUsername(randomUsername(), UsernameOnlyDto.class));
+    }
+
+    @Benchmark
+    public int tupleDto() {
+        return touchDto(memberRepository.findTupleProjectionByUsername(randomUsername(), UsernameOnlyDto.class));
+    }
+
+    @Benchmark
+    public int proxyNested() {
+        return transactionTemplate.execute(status ->
+                touchNested(memberRepository.findProjection3ByUsername(randomUsername(), NestedClosedProjections.class)));
+    }
+
+    @Benchmark
+    public int tupleNested() {
+        return transactionTemplate.execute(status ->
+                touchNested(memberRepository.findTupleProjectionByUsername(randomUsername(), NestedClosedProjections.class)));
+    }
+}
@@ -0,0 +1,69 @@
+package study.datajpa.benchmark;
+
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ 쓰기 트랜잭션 안에서 100k 건을 읽을 때
+   managed   : 일반 조회. 엔티티마다 스냅샷을 찍고, 커밋 때 100k 건 전부 변경감지
+   readOnly  : @ReadOnlyQuery (findMemberFetchJoin). 스냅샷 없음, 변경감지 대상 아님
+   stateless : StatelessSession. 영속성 컨텍스트 자체가 없음
+ heap 차이는 -prof gc 의 gc.alloc.rate.norm (B/op) 으로 본다.
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class ReadOnlyQueryBenchmark {
+
+    @Param({"100000"})
+    public int memberCount;
+
+    @Param({"100"})
+    public int teamCount;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private EntityManager em;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("read_only_bench");
+        BenchmarkContext.seed(context, memberCount, teamCount);
+        memberRepository = context.getBean(MemberRepository.class);
+        em = context.getBean(EntityManager.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Member> managed() {
+        return transactionTemplate.execute(status ->
+                em.createQuery("select m from Member m left join fetch m.team", Member.class).getResultList());
+    }
+
+    @Benchmark
+    public List<Member> readOnly() {
+        return transactionTemplate.execute(status -> memberRepository.findMemberFetchJoin());
+    }
+
+    @Benchmark
+    public List<Member> stateless() {
+        return transactionTemplate.execute(status -> memberRepository.findMemberFetchJoinStateless());
+    }
+}
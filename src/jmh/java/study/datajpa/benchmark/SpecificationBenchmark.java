@@ -0,0 +1,66 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.jpa.domain.Specification;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.MemberSpec;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+ 같은 모양의 findAll(Specification) 을 값만 바꿔가며 반복 호출할 때
+   criteria : 매번 criteria 트리 -> SQL 을 새로 만든다. (MemberSpec 을 보통 Specification 으로 감싸서 캐시를 피한다)
+   cached   : MemberSpec.Shaped -> 모양별 jpql (MemberQueryPlanCache) -> hibernate 의 plan 재사용
+ 한 건만 찾는 쿼리라 DB 시간보다 쿼리 생성 비용 차이가 잘 보인다. allocation 은 -prof gc 의 gc.alloc.rate.norm.
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SpecificationBenchmark {
+
+    @Param({"10000"})
+    public int memberCount;
+
+    @Param({"100"})
+    public int teamCount;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("spec_bench");
+        BenchmarkContext.seed(context, memberCount, teamCount);
+        memberRepository = context.getBean(MemberRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private Specification<Member> randomSpec() {
+        int i = ThreadLocalRandom.current().nextInt(memberCount);
+        return MemberSpec.username(BenchmarkContext.username(i))
+                .and(MemberSpec.teamName(BenchmarkContext.teamName(i % teamCount)));
+    }
+
+    @Benchmark
+    public List<Member> criteria() {
+        Specification<Member> shaped = randomSpec();
+        Specification<Member> plain = shaped::toPredicate;
+        return memberRepository.findAll(plain);
+    }
+
+    @Benchmark
+    public List<Member> cached() {
+        return memberRepository.findAll(randomSpec());
+    }
+}
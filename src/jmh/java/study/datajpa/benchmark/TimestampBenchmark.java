@@ -0,0 +1,72 @@
+package study.datajpa.benchmark;
+
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ 한 트랜잭션에서 entityCount 건을 persist + flush 할 때 시각 채우기 비용 (TransactionClock)
+   perTransaction=false : 엔티티마다 시계를 읽는다. (LocalDateTime.now())
+   perTransaction=true  : 트랜잭션에 한 번
+   team   : JpaBaseEntity (JpaBaseEntityListener)
+   member : BaseTimeEntity (AuditingEntityListener -> dateTimeProvider)
+ 1000건마다 flush + clear 해서 영속성 컨텍스트 크기는 일정하게 둔다.
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class TimestampBenchmark {
+
+    private static final int FLUSH_SIZE = 1_000;
+
+    @Param({"100000"})
+    public int entityCount;
+
+    @Param({"false", "true"})
+    public boolean perTransaction;
+
+    @Param({"team", "member"})
+    public String entity;
+
+    private ConfigurableApplicationContext context;
+    private EntityManager em;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("timestamp_bench", "app.clock.per-transaction=" + perTransaction);
+        em = context.getBean(EntityManager.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int flush() {
+        return transactionTemplate.execute(status -> {
+            boolean team = entity.equals("team");
+            for (int i = 0; i < entityCount; i++) {
+                em.persist(team ? new Team("clockBench") : new Member("clockBench", i));
+                if ((i + 1) % FLUSH_SIZE == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+            em.flush();
+            em.clear();
+            return entityCount;
+        });
+    }
+}
@@ -1,15 +1,18 @@
 package study.datajpa;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.data.domain.AuditorAware;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import study.datajpa.support.CachedAuditorAware;
 
 import java.util.Optional;
 import java.util.UUID;
 
-@EnableJpaAuditing
+@EnableJpaAuditing(dateTimeProviderRef = "transactionClock") /* @CreatedDate, @LastModifiedDate 도 트랜잭션 시각으로 (TransactionClock) */
 @SpringBootApplication
 public class DataJpaApplication {
 
@@ -18,12 +21,15 @@ public class DataJpaApplication {
     }
 
     @Bean
-    public AuditorAware<String> auditorProvider() {
+    public AuditorAware<String> auditorProvider(@Value("${app.auditor-cache.enabled:true}") boolean cached,
+                                                MeterRegistry meterRegistry) {
         /*
         보통은 이렇게 해놓으면 Security에서 contextHolder > context > authentication > pricipal에서 사용자를 꺼내거나,
         session 에서 사용자를 꺼내 여기에서 보내준다.
         */
+        AuditorAware<String> lookup = () -> Optional.of(UUID.randomUUID().toString());
 
-        return () -> Optional.of(UUID.randomUUID().toString());
+        /* 엔티티마다 조회하지 않고 트랜잭션(요청) 에 한 번만 (CachedAuditorAware) */
+        return cached ? new CachedAuditorAware(lookup, meterRegistry) : lookup;
     }
 }
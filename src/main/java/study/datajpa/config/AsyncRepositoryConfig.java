@@ -0,0 +1,88 @@
+package study.datajpa.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.task.TaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import study.datajpa.support.QueryTimeoutInterceptor;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/*
+ @Async("repositoryExecutor") 가 붙은 CompletableFuture repository 메서드용 스레드 풀.
+ 풀 크기가 커넥션 풀보다 크면 여기서 기다리던 게 커넥션 풀 대기로 옮겨갈 뿐이므로 비슷하게 맞춘다.
+ queue 가 가득 차면 CallerRunsPolicy 로 요청 스레드가 직접 실행 -> 더 받지 않고 느려지는 쪽으로 버틴다.
+ 큐 깊이는 executor.queued / executor.active / executor.pool.size (name=repositoryExecutor) 로 본다. (boot 가 ThreadPoolTaskExecutor 빈마다 등록)
+*/
+@Configuration
+@EnableAsync
+@EnableConfigurationProperties(RepositoryExecutorProperties.class)
+public class AsyncRepositoryConfig {
+
+    public static final String REPOSITORY_EXECUTOR = "repositoryExecutor";
+
+    @Bean(name = REPOSITORY_EXECUTOR)
+    public ThreadPoolTaskExecutor repositoryExecutor(RepositoryExecutorProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("repository-");
+        executor.setCorePoolSize(properties.getCoreSize());
+        executor.setMaxPoolSize(properties.getMaxSize());
+        executor.setQueueCapacity(properties.getQueueCapacity());
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+
+    /*
+     @Async(repositoryExecutor) repository 메서드의 쿼리에 app.repository-executor.timeout 을 query timeout 으로 건다.
+     CompletableFuture 쪽 TimeoutException 과 같은 값이라, 기다리기를 포기한 조회는 DB 에서도 끊긴다.
+     @Async advice 가 기존 advice 보다 앞에 붙으므로 (AsyncAnnotationBeanPostProcessor) repositoryExecutor 스레드에서 동작한다.
+    */
+    @Bean
+    public static BeanPostProcessor asyncQueryTimeoutPostProcessor(ObjectProvider<RepositoryExecutorProperties> properties,
+                                                                   ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory ->
+                            factory.addRepositoryProxyPostProcessor((proxyFactory, information) ->
+                                    proxyFactory.addAdvice(new QueryTimeoutInterceptor(
+                                            AsyncRepositoryConfig::isAsyncRepositoryMethod,
+                                            () -> properties.getObject().getTimeout(),
+                                            entityManagerFactory))));
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static boolean isAsyncRepositoryMethod(Method method) {
+        Async async = AnnotatedElementUtils.findMergedAnnotation(method, Async.class);
+        return async != null && REPOSITORY_EXECUTOR.equals(async.value());
+    }
+
+    /*
+     Executor 빈이 하나라도 있으면 boot 가 applicationTaskExecutor 를 만들지 않는다.
+     mvc 비동기 응답(StreamingResponseBody) 과 이름 없는 @Async 용으로 boot 기본값 그대로 다시 만든다. (virtual 프로파일은 VirtualThreadConfig)
+    */
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    @Profile("!virtual")
+    public ThreadPoolTaskExecutor applicationTaskExecutor(TaskExecutorBuilder builder) {
+        return builder.build();
+    }
+}
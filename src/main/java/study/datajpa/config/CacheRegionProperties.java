@@ -0,0 +1,25 @@
+package study.datajpa.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/* 2차 캐시 region 별 크기 / TTL (application.yml 의 app.cache.regions) */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.cache")
+public class CacheRegionProperties {
+
+    private Map<String, Region> regions = new LinkedHashMap<>();
+
+    @Getter
+    @Setter
+    public static class Region {
+        private long maxSize = 10_000;
+        private Duration ttl;       // null 이면 만료 없음 (timestamps region 은 만료되면 안 된다)
+    }
+}
@@ -0,0 +1,23 @@
+package study.datajpa.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.datajpa.support.LazyLoadGuardModule;
+import study.datajpa.support.LazyLoadGuardProperties;
+
+/*
+ jackson Module 빈은 boot 가 ObjectMapper 에 자동으로 등록한다.
+ spring.jpa.open-in-view 는 application.yml 에서 끈다. 컨트롤러는 트랜잭션 안에서 필요한 걸 다 읽고 (fetch join / DTO)
+ 커넥션을 반납한 뒤에 응답을 쓴다.
+*/
+@Configuration
+@EnableConfigurationProperties(LazyLoadGuardProperties.class)
+public class LazyLoadGuardConfig {
+
+    @Bean
+    public LazyLoadGuardModule lazyLoadGuardModule(LazyLoadGuardProperties properties, MeterRegistry meterRegistry) {
+        return new LazyLoadGuardModule(properties, meterRegistry);
+    }
+}
@@ -0,0 +1,57 @@
+package study.datajpa.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import study.datajpa.support.NPlusOneDetector;
+import study.datajpa.support.NPlusOneProperties;
+
+/*
+ N+1 감지를 요청 단위로 묶는다.
+ open-in-view 를 켜면 트랜잭션 밖(json 렌더링 중)에서 나가는 지연 로딩도 같은 요청으로 센다.
+*/
+@Configuration
+@RequiredArgsConstructor
+@EnableConfigurationProperties(NPlusOneProperties.class)
+public class NPlusOneConfig implements WebMvcConfigurer {
+
+    private static final String SCOPE_ATTRIBUTE = NPlusOneDetector.Scope.class.getName();
+
+    private final NPlusOneDetector nPlusOneDetector;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new AsyncHandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                NPlusOneDetector.Scope scope = nPlusOneDetector.open();
+                if (scope != null) {
+                    request.setAttribute(SCOPE_ATTRIBUTE, scope);
+                }
+                return true;
+            }
+
+            @Override
+            public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                close(request);
+            }
+
+            @Override
+            public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+                close(request);
+            }
+
+            private void close(HttpServletRequest request) {
+                if (request.getAttribute(SCOPE_ATTRIBUTE) instanceof NPlusOneDetector.Scope scope) {
+                    request.removeAttribute(SCOPE_ATTRIBUTE);
+                    scope.close();
+                }
+            }
+        });
+    }
+}
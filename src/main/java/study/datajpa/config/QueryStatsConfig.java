@@ -0,0 +1,16 @@
+package study.datajpa.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import study.datajpa.support.QueryStatsProperties;
+
+/*
+ 쿼리 통계 (/actuator/querystats)
+ - hibernate.generate_statistics 는 application.yml 에서 켠다. (jpql / 엔티티 / 2차 캐시)
+ - sql 단위 통계와 느린 쿼리 로그는 p6spy 리스너 (SqlStatisticsListener)
+ - 호출한 repository 메서드는 RepositoryMetricsInterceptor 가 알려준다. (RepositoryInvocationContext)
+*/
+@Configuration
+@EnableConfigurationProperties(QueryStatsProperties.class)
+public class QueryStatsConfig {
+}
@@ -0,0 +1,65 @@
+package study.datajpa.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.transaction.PlatformTransactionManager;
+import study.datajpa.repository.ReadOnlyQuery;
+import study.datajpa.support.ReadOnlyQueryInterceptor;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/*
+ @ReadOnlyQuery 를 spring data repository 프록시에 연결한다.
+ advice 를 뒤에 붙이므로 spring data 의 TransactionInterceptor 보다 안쪽에서 동작한다.
+ (SimpleJpaRepository 의 @Transactional(readOnly = true) 가 먼저 열리면 그대로 따라가고,
+  바깥 쓰기 트랜잭션에 참여한 호출이면 session 기본값만 잠깐 readOnly 로 바꾼다.)
+*/
+@Configuration
+public class ReadOnlyQueryConfig {
+
+    @Bean
+    public static BeanPostProcessor readOnlyQueryPostProcessor(ObjectProvider<PlatformTransactionManager> transactionManager,
+                                                               ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory ->
+                            factory.addRepositoryProxyPostProcessor((proxyFactory, information) ->
+                                    proxyFactory.addAdvice(new ReadOnlyQueryInterceptor(
+                                            method -> isReadOnly(information, method),
+                                            transactionManager, entityManagerFactory))));
+                }
+                return bean;
+            }
+        };
+    }
+
+    static boolean isReadOnly(RepositoryInformation information, Method method) {
+        if (AnnotatedElementUtils.hasAnnotation(method, Modifying.class)) {
+            return false;
+        }
+        if (AnnotatedElementUtils.hasAnnotation(method, ReadOnlyQuery.class) || hasReadOnlyHint(method)) {
+            return true;
+        }
+        return information.isQueryMethod(method)
+                && AnnotatedElementUtils.hasAnnotation(information.getRepositoryInterface(), ReadOnlyQuery.class);
+    }
+
+    /* @QueryHints(org.hibernate.readOnly = true) 만 붙은 메서드도 같은 취급 (replica 라우팅 대상) */
+    private static boolean hasReadOnlyHint(Method method) {
+        QueryHints queryHints = AnnotatedElementUtils.findMergedAnnotation(method, QueryHints.class);
+        return queryHints != null && Arrays.stream(queryHints.value())
+                .anyMatch(hint -> HibernateHints.HINT_READ_ONLY.equals(hint.name()) && Boolean.parseBoolean(hint.value()));
+    }
+}
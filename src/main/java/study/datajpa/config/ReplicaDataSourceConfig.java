@@ -0,0 +1,94 @@
+package study.datajpa.config;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceDecorator;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import study.datajpa.support.ReplicaRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ 읽기/쓰기 분리 : replica 프로파일에서만 켜진다.
+    @Transactional(readOnly = true), @ReadOnlyQuery (readOnly hint 메서드 포함) -> replica
+    그 외 -> primary (spring.datasource)
+ DataSource 빈을 직접 등록하므로 boot 의 DataSource 자동 설정은 빠진다.
+*/
+@Configuration
+@Profile("replica")
+@EnableConfigurationProperties(ReplicaDataSourceProperties.class)
+public class ReplicaDataSourceConfig {
+
+    /*
+     primary 풀은 빈으로 두고 spring.datasource.hikari.* 를 그대로 바인딩한다.
+     그래야 prod 의 풀 설정(크기, 타임아웃, 문장 캐시)이 먹고, boot 가 hikaricp.* 메트릭을 붙인다.
+    */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties primaryProperties) {
+        HikariDataSource primary = primaryProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        primary.setPoolName(ReplicaRoutingDataSource.PRIMARY); // pool-name 이 설정돼 있으면 바인딩이 덮어쓴다.
+        return primary;
+    }
+
+    /*
+     replica 풀은 개수가 설정에 따라 달라서 빈으로 만들지 않는다.
+     primary 의 hikari 설정을 복사한 뒤 주소/계정/크기만 바꾸고, 메트릭은 직접 붙인다. (pool 태그 = replica 이름)
+     minimum-idle 이 크기보다 크면 hikari 가 크기로 맞춘다.
+    */
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+                                                             ReplicaDataSourceProperties properties,
+                                                             MeterRegistry meterRegistry) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        List<ReplicaDataSourceProperties.Replica> replicaProperties = properties.getReplicas();
+        for (int i = 0; i < replicaProperties.size(); i++) {
+            ReplicaDataSourceProperties.Replica replica = replicaProperties.get(i);
+            String name = replica.getName() != null ? replica.getName() : "replica-" + i;
+            HikariDataSource dataSource = new HikariDataSource();
+            primaryDataSource.copyStateTo(dataSource);
+            dataSource.setJdbcUrl(replica.getUrl());
+            dataSource.setUsername(replica.getUsername());
+            dataSource.setPassword(replica.getPassword());
+            dataSource.setPoolName(name);
+            dataSource.setReadOnly(true);
+            dataSource.setMaximumPoolSize(replica.getMaximumPoolSize());
+            dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.put(name, dataSource);
+        }
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primaryDataSource, replicas,
+                properties.getSelection(), properties.getMaxLag(), properties.getLagQuery());
+        routing.startProbing(properties.getProbeInterval());
+        return routing;
+    }
+
+    /*
+     p6spy 는 커넥션을 받자마자 getMetaData() 를 호출해서 lazy proxy 가 실제 커넥션을 미리 잡아버린다.
+     그래서 빈 후처리로 바깥에 씌우지 않고(application.yml 의 exclude-beans) lazy proxy 안쪽에 직접 씌운다.
+    */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource,
+                                 ObjectProvider<DataSourceDecorator> decorators) {
+        DataSource target = replicaRoutingDataSource;
+        for (DataSourceDecorator decorator : decorators.orderedStream().toList()) {
+            target = decorator.decorate("replicaRoutingDataSource", target);
+        }
+        return new LazyConnectionDataSourceProxy(target);
+    }
+}
@@ -0,0 +1,43 @@
+package study.datajpa.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import study.datajpa.support.ReplicaRoutingDataSource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/* 읽기 전용 replica 목록과 선택/장애 판단 기준 (application.yml 의 app.datasource, replica 프로파일) */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.datasource")
+public class ReplicaDataSourceProperties {
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    private ReplicaRoutingDataSource.Selection selection = ReplicaRoutingDataSource.Selection.ROUND_ROBIN;
+
+    /* 이 주기로 replica 에 접속해서 응답 시간 / 복제 지연을 잰다. */
+    private Duration probeInterval = Duration.ofSeconds(2);
+
+    /* 복제 지연이 이보다 크면 그 replica 로 보내지 않는다. 다 빠지면 primary 로 읽는다. */
+    private Duration maxLag = Duration.ofSeconds(5);
+
+    /*
+     복제 지연(초)을 돌려주는 쿼리. 비어 있으면 지연 0 으로 본다. (H2)
+     PostgreSQL : select coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()), 0)
+    */
+    private String lagQuery;
+
+    @Getter
+    @Setter
+    public static class Replica {
+        private String name;        // 비어 있으면 replica-0, replica-1 ...
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+    }
+}
@@ -0,0 +1,23 @@
+package study.datajpa.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/* @Async repository 메서드가 도는 스레드 풀 (application.yml 의 app.repository-executor) */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.repository-executor")
+public class RepositoryExecutorProperties {
+
+    private int coreSize = 8;
+    private int maxSize = 16;
+
+    /* 이만큼 쌓이면 호출한 스레드가 직접 실행한다. (CallerRunsPolicy -> 자연스러운 back-pressure) */
+    private int queueCapacity = 100;
+
+    /* 비동기 조회 하나가 이 시간 안에 안 끝나면 TimeoutException. 같은 값이 그 조회의 query timeout 으로도 걸린다. (AsyncRepositoryConfig) */
+    private Duration timeout = Duration.ofSeconds(2);
+}
@@ -0,0 +1,121 @@
+package study.datajpa.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.NamedQueries;
+import jakarta.persistence.NamedQuery;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.domain.Example;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.stereotype.Repository;
+import study.datajpa.support.JdbcConcurrencyLimiter;
+import study.datajpa.support.LockWaitListener;
+import study.datajpa.support.RepositoryMetricsInterceptor;
+import study.datajpa.support.StatementCounter;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/*
+ 모든 repository 에 RepositoryMetricsInterceptor 를 붙인다.
+ - spring data jpa repository : 프록시를 만들 때 RepositoryProxyPostProcessor 로 advice 추가
+   (RepositoryInformation 으로 derived / @Query / named / crud ... 구분)
+ - 직접 만든 @Repository 클래스 (MemberJpaRepository 등) : 빈 초기화 후에 프록시로 감싼다. kind = jpa
+*/
+@Configuration
+public class RepositoryMetricsConfig {
+
+    /* BeanPostProcessor 는 static 으로 등록해야 다른 빈들보다 먼저 만들어진다. 의존성은 ObjectProvider 로 늦게 꺼낸다. */
+    @Bean
+    public static BeanPostProcessor repositoryMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry,
+                                                                   ObjectProvider<StatementCounter> statementCounter,
+                                                                   ObjectProvider<LockWaitListener> lockWaitListener) {
+        return new BeanPostProcessor() {
+
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory ->
+                            factory.addRepositoryProxyPostProcessor((proxyFactory, information) ->
+                                    proxyFactory.addAdvice(outermostPosition(proxyFactory), new RepositoryMetricsInterceptor(
+                                            information.getRepositoryInterface().getSimpleName(),
+                                            method -> kind(information, method),
+                                            meterRegistry, statementCounter, lockWaitListener))));
+                }
+                return bean;
+            }
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                Class<?> targetClass = AopUtils.getTargetClass(bean);
+                if (bean instanceof org.springframework.data.repository.Repository<?, ?>
+                        || !AnnotatedElementUtils.hasAnnotation(targetClass, Repository.class)) {
+                    return bean;
+                }
+
+                RepositoryMetricsInterceptor interceptor = new RepositoryMetricsInterceptor(
+                        targetClass.getSimpleName(), method -> "jpa", meterRegistry, statementCounter, lockWaitListener);
+                if (bean instanceof Advised advised && !advised.isFrozen()) {
+                    advised.addAdvice(0, interceptor);
+                    return bean;
+                }
+                ProxyFactory proxyFactory = new ProxyFactory(bean);
+                proxyFactory.setProxyTargetClass(true);
+                proxyFactory.addAdvice(interceptor);
+                return proxyFactory.getProxy(targetClass.getClassLoader());
+            }
+        };
+    }
+
+    /* 가장 바깥. 단 JdbcConcurrencyLimiter(virtual 프로파일) 는 트랜잭션보다 바깥에 있어야 하므로 그 안쪽 (permit 대기 시간은 빠진다) */
+    private static int outermostPosition(Advised advised) {
+        Advisor[] advisors = advised.getAdvisors();
+        int position = 0;
+        while (position < advisors.length && advisors[position].getAdvice() instanceof JdbcConcurrencyLimiter) {
+            position++;
+        }
+        return position;
+    }
+
+    static String kind(RepositoryInformation information, Method method) {
+        /*
+        findAll(Specification) / findAll(Example) 는 MemberRepositoryImpl 이 덮어써서 custom 으로도 잡히므로
+        파라미터 타입을 먼저 본다. (custom 이든 SimpleJpaRepository 든 같은 종류의 조회)
+        */
+        if (information.isCustomMethod(method) || information.isBaseClassMethod(method)) {
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            if (Arrays.stream(parameterTypes).anyMatch(Specification.class::isAssignableFrom)) {
+                return "specification";
+            }
+            if (Arrays.stream(parameterTypes).anyMatch(Example.class::isAssignableFrom)) {
+                return "example";
+            }
+            return information.isCustomMethod(method) ? "custom" : "crud";
+        }
+        if (information.isQueryMethod(method)) {
+            if (AnnotatedElementUtils.hasAnnotation(method, Query.class)) {
+                return "query";
+            }
+            return isNamedQuery(information.getDomainType(), method) ? "named" : "derived";
+        }
+        return "default";
+    }
+
+    /* 도메인 클래스에 "Member.findByUsername" 같은 이름의 @NamedQuery 가 있으면 named */
+    private static boolean isNamedQuery(Class<?> domainType, Method method) {
+        String name = domainType.getSimpleName() + "." + method.getName();
+        return AnnotatedElementUtils.findMergedRepeatableAnnotations(domainType, NamedQuery.class, NamedQueries.class)
+                .stream()
+                .anyMatch(namedQuery -> namedQuery.name().equals(name));
+    }
+}
@@ -0,0 +1,28 @@
+package study.datajpa.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/*
+ hibernate 는 StatementInspector 를 하나만 받는다.
+ 빈으로 등록된 StatementInspector 들을 순서대로 다 거치도록 하나로 묶어서 넘긴다.
+*/
+@Configuration
+public class StatementInspectorConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer statementInspectorCustomizer(List<StatementInspector> inspectors) {
+        StatementInspector composite = sql -> {
+            for (StatementInspector inspector : inspectors) {
+                sql = inspector.inspect(sql);
+            }
+            return sql;
+        };
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, composite);
+    }
+}
@@ -0,0 +1,89 @@
+package study.datajpa.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+import study.datajpa.support.JdbcConcurrencyLimiter;
+import study.datajpa.support.PinnedThreadMonitor;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/*
+ virtual thread 모드 : Java 21 + --spring.profiles.active=virtual  (./gradlew bootRun -PvirtualThreads)
+    - tomcat 요청 처리, applicationTaskExecutor(@Async, mvc 비동기 응답) 를 virtual thread 로
+    - repository 호출은 JdbcConcurrencyLimiter 로 동시 진입 수를 커넥션 풀 크기로 제한 (pinning 대비)
+    - pinning 이 나면 jvm.threads.virtual.pinned 카운터 + 경고 로그 (PinnedThreadMonitor)
+ 소스는 17 로 컴파일되므로 Java 21 API 는 리플렉션으로 부른다.
+*/
+@Configuration
+@Profile("virtual")
+public class VirtualThreadConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("virtual 프로파일은 Java 21 이상에서 실행해야 합니다. (현재 "
+                    + Runtime.version() + ", ./gradlew bootRun -PvirtualThreads)", e);
+        }
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(ExecutorService virtualThreadExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+
+    /* boot 의 기본 ThreadPoolTaskExecutor 대신 사용된다. (같은 이름이면 자동 설정이 빠진다) */
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    public AsyncTaskExecutor applicationTaskExecutor(ExecutorService virtualThreadExecutor) {
+        return new TaskExecutorAdapter(virtualThreadExecutor);
+    }
+
+    @Bean
+    public PinnedThreadMonitor pinnedThreadMonitor(@Value("${app.virtual-threads.pinned-threshold:20ms}") Duration threshold,
+                                                   MeterRegistry meterRegistry) {
+        return new PinnedThreadMonitor(threshold, meterRegistry);
+    }
+
+    @Bean
+    public static JdbcConcurrencyLimiter jdbcConcurrencyLimiter(
+            @Value("${app.virtual-threads.max-concurrent-jdbc:${spring.datasource.hikari.maximum-pool-size:10}}") int maxConcurrent) {
+        return new JdbcConcurrencyLimiter(maxConcurrent);
+    }
+
+    /*
+     limiter 는 repository 프록시의 가장 바깥(0번)에 붙인다.
+     spring data 의 TransactionInterceptor 가 트랜잭션을 열면서 커넥션을 먼저 잡으므로, 그 안쪽이면
+     permit 을 기다리는 동안 커넥션을 쥐고 있게 되고 hikari 대기(pinning) 를 막지 못한다.
+     호출한 쪽의 @Transactional 이 이미 커넥션을 잡고 있으면 그 트랜잭션 안의 repository 호출은 막지 않는 셈이니
+     트랜잭션이 길게 열리는 service 는 그 경계에서 따로 제한한다.
+    */
+    @Bean
+    public static BeanPostProcessor jdbcConcurrencyLimiterPostProcessor(ObjectProvider<JdbcConcurrencyLimiter> limiter) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory ->
+                            factory.addRepositoryProxyPostProcessor((proxyFactory, information) ->
+                                    proxyFactory.addAdvice(0, limiter.getObject())));
+                }
+                return bean;
+            }
+        };
+    }
+}
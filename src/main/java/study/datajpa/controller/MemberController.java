@@ -1,23 +1,68 @@
 package study.datajpa.controller;
 
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
+import org.springframework.boot.autoconfigure.data.web.SpringDataWebProperties;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Window;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import study.datajpa.config.RepositoryExecutorProperties;
+import study.datajpa.dto.MemberCursor;
 import study.datajpa.dto.MemberDto;
+import study.datajpa.dto.MemberOverviewDto;
+import study.datajpa.dto.MemberWindowDto;
+import study.datajpa.entity.Item;
 import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.CountStrategy;
+import study.datajpa.repository.ItemRepository;
 import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.PageCountSupport;
+import study.datajpa.repository.TeamRepository;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
+    private static final int EXPORT_FETCH_SIZE = 1_000;
+
     private final MemberRepository memberRepository;
+    private final TeamRepository teamRepository;
+    private final ItemRepository itemRepository;
+    private final RepositoryExecutorProperties repositoryExecutorProperties;
+    private final PageCountSupport pageCountSupport;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+    private final SpringDataWebProperties springDataWebProperties;
 
     @GetMapping("/members/{id}")
     public String findMember(@PathVariable("id") Long id) {
@@ -32,28 +77,158 @@ public class MemberController {
 
     @GetMapping("/members")
     /* 페이징 처리의 local 설정 */
-    public Page<Member> list(@PageableDefault(size = 5) Pageable pageable) {
-        Page<Member> page = memberRepository.findAll(pageable);
-        return page;
+    public Slice<Member> list(@PageableDefault(size = 5) Pageable pageable,
+                              @RequestParam(value = "count", defaultValue = "EXACT") CountStrategy count) {
+        Slice<Member> slice = memberRepository.findSliceBy(pageable);
+        return pageCountSupport.toPage("Member.all", count, slice, memberRepository::count);
         /*
         반환 타입이 Page이면, totalCount 쿼리도 따로 나가서 계산되어 나간다!
+            -> 마지막 페이지면 count 쿼리 생략, count=CACHED 면 잠깐 재사용, count=NONE 이면 Slice 로 응답
 
-        그리고 Member entity를 그대로 노출하는게 아니라, dto 로 해야한다.
+        그리고 Member entity를 그대로 노출하는게 아니라, dto 로 해야한다. (/members3)
+        open-in-view 가 꺼져 있으므로 초기화 안 된 team 은 LazyLoadGuardModule 이 막는다.
         */
     }
 
     @GetMapping("/members2")
     /* 페이징 처리의 local 설정 */
-    public Page<MemberDto> list2(@PageableDefault(size = 5) Pageable pageable) {
-        Page<Member> page = memberRepository.findAll(pageable);
-        return page.map(member -> new MemberDto(member));
+    public Slice<MemberDto> list2(@PageableDefault(size = 5) Pageable pageable,
+                                  @RequestParam(value = "count", defaultValue = "EXACT") CountStrategy count) {
+        Slice<Member> slice = memberRepository.findSliceBy(pageable);
+        return pageCountSupport.toPage("Member.all", count, slice, memberRepository::count)
+                .map(member -> new MemberDto(member));
+    }
+
+    /*
+    DTO 먼저 : repository 에서 바로 MemberDto 로 읽어서 (team 은 left join) 트랜잭션이 끝나면 커넥션을 반납하고,
+    그 뒤에 json 을 쓴다. open-in-view 가 꺼져 있어도 지연 로딩할 게 없다.
+    */
+    @GetMapping("/members3")
+    public Slice<MemberDto> list3(@PageableDefault(size = 5) Pageable pageable,
+                                  @RequestParam(value = "count", defaultValue = "EXACT") CountStrategy count) {
+        Slice<MemberDto> slice = memberRepository.findMemberDtoSliceBy(pageable);
+        return pageCountSupport.toPage("Member.all", count, slice, memberRepository::count);
+    }
+
+    /*
+    member / team / item 을 repositoryExecutor 에서 동시에 조회해서 합친다.
+    응답 시간은 세 쿼리의 합이 아니라 가장 느린 하나. 각각 app.repository-executor.timeout 을 넘기면 504.
+    CompletableFuture 를 그대로 반환하므로 요청 스레드는 기다리지 않고 바로 반납된다.
+    */
+    @GetMapping("/members/{id}/overview")
+    public CompletableFuture<MemberOverviewDto> overview(@PathVariable("id") Long id,
+                                                         @RequestParam(value = "teamName", required = false) String teamName,
+                                                         @RequestParam(value = "itemId", required = false) String itemId) {
+        CompletableFuture<Member> member = withTimeout(memberRepository.findAsyncById(id));
+        CompletableFuture<Team> team = teamName == null
+                ? CompletableFuture.completedFuture(null) : withTimeout(teamRepository.findAsyncByName(teamName));
+        CompletableFuture<Item> item = itemId == null
+                ? CompletableFuture.completedFuture(null) : withTimeout(itemRepository.findAsyncById(itemId));
+
+        return CompletableFuture.allOf(member, team, item)
+                .handle((ignored, ex) -> {
+                    if (ex != null) {
+                        Throwable cause = ex instanceof CompletionException ? ex.getCause() : ex;
+                        if (cause instanceof TimeoutException) {
+                            throw new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, "overview 조회 시간 초과", cause);
+                        }
+                        throw ex instanceof CompletionException completion ? completion : new CompletionException(ex);
+                    }
+                    Member m = member.join();
+                    Team t = team.join();
+                    Item i = item.join();
+                    return new MemberOverviewDto(
+                            m == null ? null : new MemberDto(m.getId(), m.getUsername(), m.getTeam() == null ? null : m.getTeam().getName()),
+                            t == null ? null : t.getId(),
+                            t == null ? null : t.getName(),
+                            i == null ? null : i.getId(),
+                            i == null ? null : i.getCreatedBy());
+                });
+    }
+
+    private <T> CompletableFuture<T> withTimeout(CompletableFuture<T> future) {
+        return future.orTimeout(repositoryExecutorProperties.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
     }
 
+    /*
+    keyset 모드 : /members?cursor=  (첫 페이지) -> 응답의 next 를 다시 cursor 로 넘기면 다음 페이지.
+    count 쿼리도, offset 도 없어서 몇 번째 페이지든 같은 비용이다. 깨진 cursor, size < 1 은 400.
+    size 는 offset 페이징과 같은 spring.data.web.pageable.max-page-size 까지만.
+    */
+    @GetMapping(value = "/members", params = "cursor")
+    public MemberWindowDto scroll(@RequestParam("cursor") String cursor,
+                                  @RequestParam(value = "size", defaultValue = "5") int size) {
+        if (size < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size 는 1 이상이어야 합니다: " + size);
+        }
+        size = Math.min(size, springDataWebProperties.getPageable().getMaxPageSize());
+        ScrollPosition position;
+        try {
+            position = MemberCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        Window<Member> window = memberRepository.scrollAll(position, size);
+        String next = window.hasNext() ? MemberCursor.encode(window.positionAt(window.size() - 1)) : null;
+        return new MemberWindowDto(window.map(MemberDto::new).getContent(), next);
+    }
+
+    /*
+    전체 회원 export : 응답을 스트리밍으로 쓰기 때문에 10M 건이어도 heap 사용량이 일정하다.
+    StreamingResponseBody 는 별도 스레드에서 돌기 때문에 그 안에서 읽기 전용 트랜잭션을 직접 연다.
+    format 은 ndjson(기본) | csv. 그 밖의 값은 400 (오타가 ndjson 으로 조용히 바뀌지 않게)
+    */
+    @GetMapping("/members/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(value = "format", defaultValue = "ndjson") String format) {
+        boolean csv = "csv".equalsIgnoreCase(format);
+        if (!csv && !"ndjson".equalsIgnoreCase(format)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "format 은 ndjson 또는 csv 여야 합니다: " + format);
+        }
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+
+        StreamingResponseBody body = out -> transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<MemberDto> members = memberRepository.streamMemberDto(EXPORT_FETCH_SIZE)) {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                if (csv) {
+                    writer.write("id,username,teamName\n");
+                }
+                for (MemberDto member : (Iterable<MemberDto>) members::iterator) {
+                    writer.write(csv ? toCsv(member) : objectMapper.writeValueAsString(member));
+                    writer.write('\n');
+                }
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    private static String toCsv(MemberDto member) {
+        return member.getId() + "," + csvValue(member.getUsername()) + "," + csvValue(member.getTeamName());
+    }
+
+    private static String csvValue(String value) {
+        if (value == null) {
+            return "";
+        }
+        /* RFC 4180 : 구분자, 따옴표, 줄바꿈(\r 포함) 이 있으면 따옴표로 감싼다 */
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
 
     @PostConstruct
     public void init() {
+        List<Member> members = new ArrayList<>();
         for (int i = 0; i < 100; i++) {
-            memberRepository.save(new Member("user"+ i, i));
+            members.add(new Member("user"+ i, i));
         }
+        memberRepository.saveAllBatched(members, 100);
     }
 }
@@ -0,0 +1,44 @@
+package study.datajpa.dto;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ keyset 페이징의 다음 위치(username, id)를 클라이언트에게 넘길 불투명 토큰으로 바꾼다.
+ "id:username" 을 base64url 로 감싼 것. username 에 ':' 이 있어도 첫번째 ':' 로만 나누니 괜찮다.
+*/
+public final class MemberCursor {
+
+    private MemberCursor() {
+    }
+
+    public static String encode(ScrollPosition position) {
+        if (!(position instanceof KeysetScrollPosition keyset) || keyset.isInitial()) {
+            return null;
+        }
+        Map<String, Object> keys = keyset.getKeys();
+        String raw = keys.get("id") + ":" + keys.get("username");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ScrollPosition decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int idx = raw.indexOf(':');
+            Map<String, Object> keys = new LinkedHashMap<>();
+            keys.put("username", raw.substring(idx + 1));
+            keys.put("id", Long.valueOf(raw.substring(0, idx)));
+            return ScrollPosition.forward(keys);
+        } catch (IllegalArgumentException | StringIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("잘못된 cursor 입니다: " + cursor, e);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/* /members/{id}/overview : 서로 관계없는 조회 세 개를 한 번에 (못 찾은 값은 null) */
+@Getter
+public class MemberOverviewDto {
+    private final MemberDto member;
+    private final Long teamId;
+    private final String teamName;
+    private final String itemId;
+    private final LocalDateTime itemCreatedDate;
+
+    public MemberOverviewDto(MemberDto member, Long teamId, String teamName, String itemId, LocalDateTime itemCreatedDate) {
+        this.member = member;
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.itemId = itemId;
+        this.itemCreatedDate = itemCreatedDate;
+    }
+}
@@ -0,0 +1,16 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+public class MemberWindowDto {
+    private final List<MemberDto> content;
+    private final String next;      // 마지막 페이지면 null
+
+    public MemberWindowDto(List<MemberDto> content, String next) {
+        this.content = content;
+        this.next = next;
+    }
+}
@@ -1,20 +1,18 @@
 package study.datajpa.entity;
 
 import jakarta.persistence.Column;
-import jakarta.persistence.EntityListeners;
 import jakarta.persistence.MappedSuperclass;
 import lombok.Getter;
 import org.springframework.data.annotation.CreatedBy;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedBy;
 import org.springframework.data.annotation.LastModifiedDate;
-import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.time.LocalDateTime;
 
 @MappedSuperclass
 @Getter
-@EntityListeners(AuditingEntityListener.class)
+/* AuditingEntityListener 는 BaseTimeEntity 에서 물려받는다. (하위 클래스에 다시 선언할 필요 없다) */
 public abstract class BaseEntity extends BaseTimeEntity{
 
     @CreatedBy
@@ -14,6 +14,10 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.time.LocalDateTime;
 
+/*
+ ItemRepositoryImpl.upsertAll 이 (id, createdBy) 를 jdbc 로 직접 넣는다.
+ 필드를 추가하면 upsertAll 의 insert 문과 바인딩도 같이 고친다. (안 고치면 upsertAll 이 IllegalStateException)
+*/
 @Entity
 @Getter
 @Setter
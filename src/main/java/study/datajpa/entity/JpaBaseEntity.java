@@ -1,29 +1,26 @@
 package study.datajpa.entity;
 
 import jakarta.persistence.Column;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.MappedSuperclass;
-import jakarta.persistence.PrePersist;
-import jakarta.persistence.PreUpdate;
 import lombok.Getter;
 
 import java.time.LocalDateTime;
 
 @Getter
 @MappedSuperclass       /* 속성만 내려쓰는 상속 비스무리한 내용 */
+@EntityListeners(JpaBaseEntityListener.class)   /* 시각은 리스너가 TransactionClock 에서 받아서 넣어준다. */
 public abstract class JpaBaseEntity {   /* 추상 클래스로 만들어 두는게 좋다 */
     @Column(updatable = false)
     private LocalDateTime createDate;
     private LocalDateTime updateDate;
 
-    @PrePersist
-    public void prePersist() {
-        LocalDateTime now = LocalDateTime.now();
+    void prePersist(LocalDateTime now) {
         this.createDate = now;
         this.updateDate = now;
     }
 
-    @PreUpdate
-    public void preUpdate() {
-        this.updateDate = LocalDateTime.now();
+    void preUpdate(LocalDateTime now) {
+        this.updateDate = now;
     }
 }
@@ -0,0 +1,29 @@
+package study.datajpa.entity;
+
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import study.datajpa.support.TransactionClock;
+
+/*
+ JpaBaseEntity 의 시각을 채운다.
+ 엔티티 리스너는 hibernate 가 스프링 빈 컨테이너로 만들기 때문에 (SpringBeanContainer) 생성자 주입이 된다.
+ 엔티티마다 LocalDateTime.now() 를 부르지 않고 트랜잭션의 시각을 쓴다. (TransactionClock)
+*/
+public class JpaBaseEntityListener {
+
+    private final TransactionClock transactionClock;
+
+    public JpaBaseEntityListener(TransactionClock transactionClock) {
+        this.transactionClock = transactionClock;
+    }
+
+    @PrePersist
+    public void prePersist(JpaBaseEntity entity) {
+        entity.prePersist(transactionClock.now());
+    }
+
+    @PreUpdate
+    public void preUpdate(JpaBaseEntity entity) {
+        entity.preUpdate(transactionClock.now());
+    }
+}
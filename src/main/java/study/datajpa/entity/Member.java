@@ -3,21 +3,38 @@ package study.datajpa.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import study.datajpa.support.StripedSequenceGenerator;
 
 @Entity
+@Table(indexes = { /* keyset 페이징 (MemberRepository.KEYSET_SORT = username, id) 이 정렬 없이 인덱스를 따라 읽도록 */
+        @Index(name = "idx_member_username_id", columnList = "username, member_id"),
+        @Index(name = "idx_member_age_username_id", columnList = "age, username, member_id") /* scrollByAge */
+})
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED) // proxy 기술을 쓸 때, 사용한다.
 @ToString(of = {"id", "username", "age"}) // toString의 내용. 여기에 team 있다면, toString 무한 루프가 돈다.
 @NamedQuery(
         name = "Member.findByUsername",
-        query="select m from Member m where m.username= :username"
+        query="select m from Member m where m.username= :username",
+        hints = @QueryHint(name = "org.hibernate.cacheable", value = "true") /* query cache 가 켜져 있을 때만 동작 (cache 프로파일) */
 )
 @NamedEntityGraph(name ="Member.all", attributeNodes = @NamedAttributeNode("team")) /* NamedEntityGraph 에서 EntityGraph가 나옴*/
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "member") /* 2차 캐시 (cache 프로파일에서만 사용) */
 public class Member extends BaseEntity /*JpaBaseEntity 는 순수 jpa 사용할 때 쓰는 것*/{
 
     @Id
-    @GeneratedValue // 식별자 값을 디비에 알아서 넣어준다.
+    @GeneratedValue(generator = "member_seq_generator") // 식별자 값을 디비에 알아서 넣어준다.
+    @GenericGenerator(name = "member_seq_generator", type = StripedSequenceGenerator.class, parameters = {
+            @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "member_seq"),
+            @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "50")})
+    /* increment_size 만큼씩 블록을 받아 스레드별 stripe 에서 나눠주므로 insert 50번에 sequence 호출은 1번 (app.id.*, application.yml) */
     @Column(name = "member_id")
     private Long id;
     private String username;
@@ -3,6 +3,15 @@ package study.datajpa.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import study.datajpa.support.StripedSequenceGenerator;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -12,15 +21,23 @@ import java.util.List;
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED) // proxy 기술을 쓸 때, 사용한다.
 @ToString(of = {"id", "name"})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "team") /* 2차 캐시 (cache 프로파일에서만 사용) */
+@BatchSize(size = 100) /* Member.team 프록시를 초기화할 때 영속성 컨텍스트에 있는 team 프록시를 100개씩 in 쿼리로 같이 가져온다. */
 public class Team extends JpaBaseEntity{
 
     @Id
-    @GeneratedValue // 식별자 값을 디비에 알아서 넣어준다.
+    @GeneratedValue(generator = "team_seq_generator") // 식별자 값을 디비에 알아서 넣어준다.
+    @GenericGenerator(name = "team_seq_generator", type = StripedSequenceGenerator.class, parameters = {
+            @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "team_seq"),
+            @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "50")})
     @Column(name = "team_id")
     private Long id;
     private String name;
 
     @OneToMany(mappedBy = "team")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "team.members") /* 컬렉션은 member id 목록만 캐시된다 */
+    @Fetch(FetchMode.SUBSELECT) /* 하나를 초기화하면 같은 쿼리로 읽은 team 들의 members 를 서브쿼리 한번으로 다 가져온다. */
     private List<Member> members = new ArrayList<>();
 
     public Team(String name) {
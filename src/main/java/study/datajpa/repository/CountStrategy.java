@@ -0,0 +1,11 @@
+package study.datajpa.repository;
+
+/*
+ Page 를 만들 때 totalCount 를 어떻게 구할지.
+    EXACT  : 매번 count 쿼리 (마지막 페이지면 count 없이 계산)
+    CACHED : 짧은 TTL 동안 count 결과를 재사용 (추정값)
+    NONE   : count 없이 Slice 로 돌려준다.
+*/
+public enum CountStrategy {
+    EXACT, CACHED, NONE
+}
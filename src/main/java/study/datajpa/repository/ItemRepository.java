@@ -1,7 +1,15 @@
 package study.datajpa.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.scheduling.annotation.Async;
+import study.datajpa.config.AsyncRepositoryConfig;
 import study.datajpa.entity.Item;
 
-public interface ItemRepository extends JpaRepository<Item, Long> {
+import java.util.concurrent.CompletableFuture;
+
+/* Item 의 id 는 String (Persistable<String>) */
+public interface ItemRepository extends JpaRepository<Item, String>, ItemRepositoryCustom {
+
+    @Async(AsyncRepositoryConfig.REPOSITORY_EXECUTOR)
+    CompletableFuture<Item> findAsyncById(String id);
 }
@@ -0,0 +1,18 @@
+package study.datajpa.repository;
+
+import study.datajpa.entity.Item;
+
+import java.util.Collection;
+
+public interface ItemRepositoryCustom {
+
+    /*
+    id 를 직접 정하는 Item 대량 저장. 이름과 달리 upsert 가 아니라 insert-if-absent 다.
+    이미 있는 id 는 그대로 두고(값을 덮어쓰지 않는다) 없는 것만 넣는다.
+    save() 는 createdBy 가 있는 Item 을 merge 로 보내서 row 마다 select + insert 가 나가지만,
+    여기서는 DB 의 insert-if-absent 한 문장(on conflict do nothing / merge when not matched)을
+    jdbc batch 로 batchSize 개씩 묶어서 보낸다.
+    돌려주는 값은 새로 들어간 row 수. (드라이버가 batch 결과를 알려주지 않으면 0)
+    */
+    int upsertAll(Collection<Item> items, int batchSize);
+}
@@ -0,0 +1,89 @@
+package study.datajpa.repository;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Item;
+import study.datajpa.support.TransactionClock;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+
+@RequiredArgsConstructor
+public class ItemRepositoryImpl implements ItemRepositoryCustom {
+
+    private final EntityManager em;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionClock transactionClock;
+
+    /*
+    영속성 컨텍스트를 거치지 않고 jdbc 로 바로 쓴다. (같은 트랜잭션의 커넥션을 쓴다)
+    @CreatedDate 도 auditing 이 채워주지 않으므로 비어 있으면 여기서 채운다. -> 저장 후 isNew() 는 false
+    (auditing 과 같은 TransactionClock 이라 같은 트랜잭션에서 save 한 Item 과 시각이 같다)
+    */
+    @Override
+    @Transactional
+    public int upsertAll(Collection<Item> items, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize 는 1 이상이어야 합니다: " + batchSize);
+        }
+
+        LocalDateTime now = transactionClock.now();
+        for (Item item : items) {
+            if (item.getCreatedBy() == null) {
+                item.setCreatedBy(now);
+            }
+        }
+
+        int[][] counts = jdbcTemplate.batchUpdate(insertIfAbsentSql(), items, batchSize, (ps, item) -> {
+            ps.setString(1, item.getId());
+            ps.setObject(2, item.getCreatedBy());
+        });
+        return Arrays.stream(counts)
+                .flatMapToInt(Arrays::stream)
+                .filter(count -> count > 0)
+                .sum();
+    }
+
+    /*
+    이미 있는 row 는 건드리지 않는다. (insert-if-absent, 덮어쓰지 않는다)
+    테이블/컬럼 이름은 Item 의 매핑에서 꺼낸다. 바인딩은 (id, createdBy) 두 개라
+    Item 에 필드가 늘어나면 여기서 실패시킨다. (새 컬럼을 빼먹고 넣지 않도록)
+    */
+    private String insertIfAbsentSql() {
+        SessionFactoryImplementor sessionFactory = em.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class);
+        AbstractEntityPersister persister = (AbstractEntityPersister) sessionFactory.getMappingMetamodel()
+                .getEntityDescriptor(Item.class);
+        if (!Arrays.equals(persister.getPropertyNames(), new String[]{"createdBy"})) {
+            throw new IllegalStateException("upsertAll 은 Item(id, createdBy) 만 씁니다. 매핑된 속성 : "
+                    + Arrays.toString(persister.getPropertyNames()));
+        }
+        String table = persister.getTableName();
+        String id = persister.getIdentifierColumnNames()[0];
+        String createdBy = persister.getPropertyColumnNames("createdBy")[0];
+
+        Dialect dialect = sessionFactory.getJdbcServices().getDialect();
+        if (dialect instanceof PostgreSQLDialect) {
+            return "insert into %1$s (%2$s, %3$s) values (?, ?) on conflict (%2$s) do nothing"
+                    .formatted(table, id, createdBy);
+        }
+        if (dialect instanceof MySQLDialect) {
+            return "insert into %1$s (%2$s, %3$s) values (?, ?) on duplicate key update %2$s = %2$s"
+                    .formatted(table, id, createdBy);
+        }
+        if (dialect instanceof H2Dialect) {
+            return ("merge into %1$s t using (select ? as %2$s, ? as %3$s) s on t.%2$s = s.%2$s"
+                    + " when not matched then insert (%2$s, %3$s) values (s.%2$s, s.%3$s)")
+                    .formatted(table, id, createdBy);
+        }
+        throw new IllegalStateException("insert-if-absent 를 지원하지 않는 dialect 입니다: " + dialect.getClass().getSimpleName());
+    }
+}
@@ -0,0 +1,158 @@
+package study.datajpa.repository;
+
+import jakarta.persistence.metamodel.Attribute.PersistentAttributeType;
+import jakarta.persistence.metamodel.ManagedType;
+import jakarta.persistence.metamodel.Metamodel;
+import jakarta.persistence.metamodel.SingularAttribute;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.jpa.repository.query.EscapeCharacter;
+import org.springframework.data.support.ExampleMatcherAccessor;
+import org.springframework.data.util.DirectFieldAccessFallbackBeanWrapper;
+import study.datajpa.entity.Member;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+
+/*
+ Example<Member> -> jpql. (QueryByExamplePredicateBuilder 와 같은 규칙)
+ - 값이 있는 필드만 조건이 되고, 모양(shape) 은 matcher 설정 + 값이 있는 필드 목록으로 정해진다. (MemberQueryPlanCache 의 key)
+ - 연관관계(team) 는 안쪽 probe 에 조건이 하나라도 있을 때만 join 한다. (비어있으면 team 조건 자체가 없는 것)
+ - ignoreCase 인 경로에만 lower() 를 씌운다. 값은 자바에서 소문자로 바꿔서 넘긴다. 나머지는 컬럼 그대로 = / like 'abc%' 라 인덱스를 탈 수 있다.
+ REGEX matcher, 임베디드 타입, 순환하는 연관관계는 여기서 다루지 않는다. (of 가 null -> criteria 로 실행)
+*/
+final class MemberExampleQuery {
+
+    private static final String ROOT_ALIAS = "m";
+    /* hql 문자열 리터럴 안에 역슬래시가 들어가지 않도록 '!' 로 escape 한다. (값에 있는 ! 도 같이 escape 된다) */
+    private static final EscapeCharacter ESCAPE = EscapeCharacter.of('!');
+    private static final String ESCAPE_CLAUSE = " escape '!'";
+
+    private final ExampleMatcher matcher;
+    private final ExampleMatcherAccessor accessor;
+    private final List<String> joins = new ArrayList<>();
+    private final List<String> predicates = new ArrayList<>();
+    private final List<Object> parameters = new ArrayList<>();
+
+    private MemberExampleQuery(ExampleMatcher matcher) {
+        this.matcher = matcher;
+        this.accessor = new ExampleMatcherAccessor(matcher);
+    }
+
+    static MemberExampleQuery of(Example<?> example, Metamodel metamodel) {
+        if (example.getProbeType() != Member.class) {
+            return null;
+        }
+
+        MemberExampleQuery query = new MemberExampleQuery(example.getMatcher());
+        boolean supported = query.collect(metamodel, metamodel.entity(Member.class), example.getProbe(),
+                ROOT_ALIAS, "", new HashSet<>());
+        return supported ? query : null;
+    }
+
+    /* ex) "join m.team j0 | and | m.username = :p0 | lower(j0.name) like :p1 escape '!'" */
+    String shape() {
+        return String.join(" ", joins) + " | " + joiner() + " | " + String.join(" | ", predicates);
+    }
+
+    List<Object> parameters() {
+        return parameters;
+    }
+
+    String toJpql() {
+        StringBuilder jpql = new StringBuilder("select m from Member m");
+        for (String join : joins) {
+            jpql.append(' ').append(join);
+        }
+        if (!predicates.isEmpty()) {
+            jpql.append(" where ").append(String.join(" " + joiner() + " ", predicates));
+        }
+        return jpql.toString();
+    }
+
+    private String joiner() {
+        return matcher.isAllMatching() ? "and" : "or";
+    }
+
+    private boolean collect(Metamodel metamodel, ManagedType<?> type, Object probe, String alias, String path,
+                            Set<ManagedType<?>> visited) {
+        if (!visited.add(type)) {
+            return false;
+        }
+
+        DirectFieldAccessFallbackBeanWrapper beanWrapper = new DirectFieldAccessFallbackBeanWrapper(probe);
+        for (SingularAttribute<?, ?> attribute : type.getSingularAttributes()) {
+            String currentPath = path.isEmpty() ? attribute.getName() : path + "." + attribute.getName();
+            if (accessor.isIgnoredPath(currentPath)) {
+                continue;
+            }
+
+            Object value = accessor.getValueTransformerForPath(currentPath)
+                    .apply(Optional.ofNullable(beanWrapper.getPropertyValue(attribute.getName())))
+                    .orElse(null);
+            String attributePath = alias + "." + attribute.getName();
+
+            if (value == null) {
+                if (accessor.getNullHandler() == ExampleMatcher.NullHandler.INCLUDE) {
+                    predicates.add(attributePath + " is null");
+                }
+                continue;
+            }
+
+            PersistentAttributeType attributeType = attribute.getPersistentAttributeType();
+            if (attributeType == PersistentAttributeType.MANY_TO_ONE || attributeType == PersistentAttributeType.ONE_TO_ONE) {
+                String joinAlias = "j" + joins.size();
+                int joinIndex = joins.size();
+                int predicateCount = predicates.size();
+                joins.add("join " + attributePath + " " + joinAlias);
+                if (!collect(metamodel, metamodel.managedType(attribute.getJavaType()), value, joinAlias, currentPath, visited)) {
+                    return false;
+                }
+                if (predicates.size() == predicateCount) {
+                    joins.remove(joinIndex); // 안쪽 probe 가 비어있으면 join 하지 않는다.
+                }
+                continue;
+            }
+            if (attributeType != PersistentAttributeType.BASIC) {
+                return false;
+            }
+
+            if (value instanceof String string) {
+                if (!addString(attributePath, currentPath, string)) {
+                    return false;
+                }
+                continue;
+            }
+            predicates.add(attributePath + " = " + bind(value));
+        }
+
+        visited.remove(type);
+        return true;
+    }
+
+    private boolean addString(String attributePath, String currentPath, String value) {
+        boolean ignoreCase = accessor.isIgnoreCaseForPath(currentPath);
+        String expression = ignoreCase ? "lower(" + attributePath + ")" : attributePath;
+        String bound = ignoreCase ? value.toLowerCase(Locale.ROOT) : value;
+
+        switch (accessor.getStringMatcherForPath(currentPath)) {
+            case DEFAULT, EXACT -> predicates.add(expression + " = " + bind(bound));
+            case STARTING -> predicates.add(expression + " like " + bind(ESCAPE.escape(bound) + "%") + ESCAPE_CLAUSE);
+            case ENDING -> predicates.add(expression + " like " + bind("%" + ESCAPE.escape(bound)) + ESCAPE_CLAUSE);
+            case CONTAINING -> predicates.add(expression + " like " + bind("%" + ESCAPE.escape(bound) + "%") + ESCAPE_CLAUSE);
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String bind(Object value) {
+        parameters.add(value);
+        return ":p" + (parameters.size() - 1);
+    }
+}
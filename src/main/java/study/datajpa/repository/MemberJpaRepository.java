@@ -71,6 +71,28 @@ public class MemberJpaRepository {
                 .getResultList();
     }
 
+    /*
+    keyset(seek) 페이징 : findByPage 와 같은 정렬(username desc)에 id 를 더해서,
+    이전 페이지의 마지막 (username, id) 보다 뒤에 있는 것만 limit 만큼 가져온다.
+    첫 페이지는 lastUsername, lastId 를 null 로 넘긴다.
+    */
+    public List<Member> findByKeyset(int age, String lastUsername, Long lastId, int limit) {
+        if (lastUsername == null || lastId == null) {
+            return em.createQuery("select m from Member m where m.age = :age order by m.username desc, m.id desc", Member.class)
+                    .setParameter("age", age)
+                    .setMaxResults(limit)
+                    .getResultList();
+        }
+        return em.createQuery("select m from Member m where m.age = :age" +
+                        " and (m.username < :username or (m.username = :username and m.id < :id))" +
+                        " order by m.username desc, m.id desc", Member.class)
+                .setParameter("age", age)
+                .setParameter("username", lastUsername)
+                .setParameter("id", lastId)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
     public long totalCount(int age) {
         return em.createQuery("select count(m) from Member m where m.age = :age", Long.class)
                 .setParameter("age", age)
@@ -0,0 +1,214 @@
+package study.datajpa.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.metamodel.EntityType;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.data.mapping.PropertyPath;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ReflectionUtils;
+import study.datajpa.entity.Member;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/*
+ Member 프로젝션을 엔티티 없이 컬럼만 select 해서 만든다. (MemberRepositoryCustom.findTupleProjectionByUsername)
+ 타입마다 한 번만 분석해서 (select 절 + row -> 객체 변환) 을 캐시한다.
+  - DTO / record : 생성자 파라미터 이름 = Member 의 프로퍼티 경로 (teamName -> team.name). 생성자 MethodHandle 로 바로 만든다.
+  - 인터페이스(closed projection) : getter 마다 컬럼 하나, 중첩 인터페이스(TeamInfo) 는 left join 후 필요한 컬럼만.
+    연관 엔티티가 없으면(id 가 null) 중첩 프로젝션도 null.
+    값은 배열 하나에 담고, 인터페이스를 구현하는 클래스를 타입마다 한 번 만들어서(hidden class) getter 가 index 로 바로 꺼낸다.
+    (getter 호출에 proxy / InvocationHandler / Method 조회가 없다. default 메서드는 그대로 상속된다 - ProjectionClassGenerator)
+ spring data 의 프로젝션은 중첩 프로젝션이 있으면 Team 엔티티를 통째로 읽고, getter 호출마다 spring proxy + 리플렉션을 거친다.
+ @Value 가 붙은 open projection 은 지원하지 않는다. (엔티티가 있어야 SpEL 을 평가할 수 있다)
+*/
+@Component
+public class MemberProjections {
+
+    private static final String ROOT_ALIAS = "m";
+
+    private final EntityManager em;
+    private final Map<Class<?>, Plan<?>> plans = new ConcurrentHashMap<>();
+
+    public MemberProjections(EntityManager em) {
+        this.em = em;
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> Plan<T> plan(Class<T> type) {
+        return (Plan<T>) plans.computeIfAbsent(type, this::createPlan);
+    }
+
+    private Plan<?> createPlan(Class<?> type) {
+        Columns columns = new Columns();
+        Function<Object[], ?> mapper = type.isInterface()
+                ? interfaceMapper(type, Member.class, "", columns)
+                : constructorMapper(type, columns);
+        return new Plan<>(columns.select(), mapper);
+    }
+
+    /* 생성자 파라미터 순서대로 컬럼을 select 하므로 row 를 그대로 생성자 인자로 넘긴다. */
+    private Function<Object[], ?> constructorMapper(Class<?> type, Columns columns) {
+        Constructor<?> constructor = constructorOf(type);
+        String[] names = type.isRecord()
+                ? Arrays.stream(type.getRecordComponents()).map(RecordComponent::getName).toArray(String[]::new)
+                : new DefaultParameterNameDiscoverer().getParameterNames(constructor);
+        if (names == null) {
+            throw new IllegalArgumentException("생성자 파라미터 이름을 알 수 없습니다 (-parameters 로 컴파일 필요): " + type.getName());
+        }
+        for (String name : names) {
+            columns.add(PropertyPath.from(name, Member.class).toDotPath());
+        }
+
+        ReflectionUtils.makeAccessible(constructor);
+        MethodHandle handle;
+        try {
+            handle = MethodHandles.lookup().unreflectConstructor(constructor)
+                    .asSpreader(Object[].class, names.length)
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("생성자에 접근할 수 없습니다: " + type.getName(), e);
+        }
+        return row -> {
+            try {
+                return handle.invokeExact(row);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    private static Constructor<?> constructorOf(Class<?> type) {
+        if (type.isRecord()) {
+            Class<?>[] parameterTypes = Arrays.stream(type.getRecordComponents())
+                    .map(RecordComponent::getType)
+                    .toArray(Class<?>[]::new);
+            try {
+                return type.getDeclaredConstructor(parameterTypes);
+            } catch (NoSuchMethodException e) {
+                throw new IllegalArgumentException("record 의 기본 생성자를 찾을 수 없습니다: " + type.getName(), e);
+            }
+        }
+        Constructor<?>[] constructors = type.getDeclaredConstructors();
+        if (constructors.length != 1) {
+            throw new IllegalArgumentException("DTO 프로젝션은 생성자가 하나여야 합니다: " + type.getName());
+        }
+        return constructors[0];
+    }
+
+    private Function<Object[], Object> interfaceMapper(Class<?> type, Class<?> domainType, String prefix, Columns columns) {
+        List<Method> getters = new ArrayList<>();
+        List<Function<Object[], Object>> accessors = new ArrayList<>();
+
+        for (Method getter : type.getMethods()) {
+            if (getter.isDefault() || Modifier.isStatic(getter.getModifiers()) || getter.getParameterCount() != 0) {
+                continue;
+            }
+            if (getter.isAnnotationPresent(Value.class)) {
+                throw new IllegalArgumentException("open projection 은 지원하지 않습니다: " + type.getName() + "." + getter.getName());
+            }
+            PropertyDescriptor descriptor = BeanUtils.findPropertyForMethod(getter);
+            if (descriptor == null) {
+                throw new IllegalArgumentException("getter 가 아닙니다: " + type.getName() + "." + getter.getName());
+            }
+
+            String path = prefix + descriptor.getName();
+            Class<?> returnType = getter.getReturnType();
+            getters.add(getter); // getters[i] 가 values[i] 를 돌려준다.
+            if (returnType.isInterface() && !returnType.getName().startsWith("java.")) {
+                Class<?> nestedDomainType = PropertyPath.from(descriptor.getName(), domainType).getType();
+                int id = columns.add(path + "." + idName(nestedDomainType));
+                Function<Object[], Object> nested = interfaceMapper(returnType, nestedDomainType, path + ".", columns);
+                accessors.add(row -> row[id] == null ? null : nested.apply(row));
+            } else {
+                int index = columns.add(path);
+                accessors.add(row -> row[index]);
+            }
+        }
+
+        MethodHandle constructor = ProjectionClassGenerator.generate(type, getters);
+        return row -> {
+            Object[] values = new Object[accessors.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = accessors.get(i).apply(row);
+            }
+            try {
+                return constructor.invokeExact(values);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    private String idName(Class<?> domainType) {
+        EntityType<?> entity = em.getMetamodel().entity(domainType);
+        return entity.getId(entity.getIdType().getJavaType()).getName();
+    }
+
+    /* select 할 경로들. 연관관계는 경로마다 left join 하나 (team.name, team.id -> 같은 join) */
+    private static final class Columns {
+
+        private final List<String> selections = new ArrayList<>();
+        private final Map<String, String> joins = new LinkedHashMap<>();
+        private final List<String> joinClauses = new ArrayList<>();
+
+        int add(String dotPath) {
+            String alias = ROOT_ALIAS;
+            String path = "";
+            String[] segments = dotPath.split("\\.");
+            for (int i = 0; i < segments.length - 1; i++) {
+                String parent = alias;
+                String segment = segments[i];
+                path = path.isEmpty() ? segment : path + "." + segment;
+                alias = joins.computeIfAbsent(path, key -> {
+                    String joinAlias = "j" + joinClauses.size();
+                    joinClauses.add("left join " + parent + "." + segment + " " + joinAlias);
+                    return joinAlias;
+                });
+            }
+            selections.add(alias + "." + segments[segments.length - 1]);
+            return selections.size() - 1;
+        }
+
+        String select() {
+            StringBuilder jpql = new StringBuilder("select ")
+                    .append(String.join(", ", selections))
+                    .append(" from Member ").append(ROOT_ALIAS);
+            for (String join : joinClauses) {
+                jpql.append(' ').append(join);
+            }
+            return jpql.toString();
+        }
+    }
+
+    record Plan<T>(String select, Function<Object[], T> mapper) {
+
+        String jpql(String where) {
+            return select + " where " + where;
+        }
+
+        /* select 항목이 하나면 hibernate 는 배열이 아니라 값 하나를 돌려준다. */
+        T map(Object row) {
+            return mapper.apply(row instanceof Object[] values ? values : new Object[]{row});
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package study.datajpa.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/*
+ 동적 조건의 모양(shape) -> jpql 문자열. (MemberSpec.Shaped, MemberExampleQuery)
+ hibernate 는 jpql(hql) 문자열 단위로 해석 결과(SQM, SQL)를 캐시한다. (hibernate.query.plan_cache_max_size)
+ criteria 는 기본으로 캐시되지 않아서 호출마다 criteria 트리 -> SQL 을 다시 만든다.
+ 모양이 같으면 항상 같은 jpql 을 넘겨서, 값만 다른 호출들이 hibernate 의 plan 하나를 같이 쓰게 한다.
+ 적중률은 member.query.plans (source=specification|example, result=hit|miss) 로 본다.
+*/
+@Component
+public class MemberQueryPlanCache {
+
+    public static final String SPECIFICATION = "specification";
+    public static final String EXAMPLE = "example";
+
+    private static final int MAX_CACHED_SHAPES = 1_000;
+
+    private final Map<String, String> plans = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public MemberQueryPlanCache(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("member.query.plans.size", plans, Map::size)
+                .description("cached member query shapes")
+                .register(meterRegistry);
+    }
+
+    private Counter plans(String source, String result) {
+        return counters.computeIfAbsent(source + ":" + result, key -> Counter.builder("member.query.plans")
+                .description("member query plan lookups by shape")
+                .tag("source", source)
+                .tag("result", result)
+                .register(meterRegistry));
+    }
+
+    public String jpql(String source, String shape, Supplier<String> render) {
+        String key = source + ":" + shape;
+        String jpql = plans.get(key);
+        if (jpql != null) {
+            plans(source, "hit").increment();
+            return jpql;
+        }
+
+        plans(source, "miss").increment();
+        jpql = render.get();
+        if (plans.size() >= MAX_CACHED_SHAPES) {
+            plans.clear();
+        }
+        plans.put(key, jpql);
+        return jpql;
+    }
+}
@@ -2,16 +2,25 @@ package study.datajpa.repository;
 
 import jakarta.persistence.LockModeType;
 import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.SpecHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
+import org.springframework.scheduling.annotation.Async;
+import study.datajpa.config.AsyncRepositoryConfig;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom, JpaSpecificationExecutor<Member> {
 
@@ -40,14 +49,17 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     @Query("select m from Member m where m.username = :username and m.age = :age")
     List<Member> findUser(@Param("username") String username, @Param("age") int age);
 
+    @ReadOnlyQuery
     @Query("select m.username from Member m")
     List<String> findUsernameList();
 
 
+    @ReadOnlyQuery
     @Query("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m join m.team t")
     List<MemberDto> findMemberDto();
 
     /* @Query : 파라미터 바인딩 & 컬렉션 바인딩 */
+    @ReadOnlyQuery
     @Query("select m from Member m where m.username in :names")
     List<Member> findByNames(@Param("names") List<String> names);
 
@@ -67,8 +79,34 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     Page<Member> findByAge(int age, Pageable pageable);
 
     Slice<Member> findAllByAge(int age, Pageable pageable);
+
+    /* count 쿼리 없이 size + 1 개만 조회 -> PageCountSupport 에서 total 을 결정 */
+    @Query("select m from Member m")
+    Slice<Member> findSliceBy(Pageable pageable);
     List<Member> findMemberByAge(int age, Pageable pageable);
 
+    /* 목록 화면용 : 엔티티 대신 DTO 로 바로 읽는다. 트랜잭션이 끝나면 지연 로딩할 게 없어서 open-in-view 가 필요 없다. */
+    @Query("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m left join m.team t")
+    Slice<MemberDto> findMemberDtoSliceBy(Pageable pageable);
+
+    /*
+    * keyset(seek) 페이징
+    *   offset 은 앞의 row 를 다 읽고 버리기 때문에 뒤 페이지로 갈수록 느려진다.
+    *   마지막으로 읽은 (username, id) 다음부터 읽으면 몇 번째 페이지든 비용이 같다.
+    *   정렬 조건에 유일한 값(id)이 꼭 들어가야 중복/누락이 없다.
+    * */
+    Sort KEYSET_SORT = Sort.by("username", "id");
+
+    @ReadOnlyQuery
+    default Window<Member> scrollAll(ScrollPosition position, int size) {
+        return findBy(Specification.where(null), query -> query.sortBy(KEYSET_SORT).limit(size).scroll(position));
+    }
+
+    @ReadOnlyQuery
+    default Window<Member> scrollByAge(int age, ScrollPosition position, int size) {
+        return findBy(MemberSpec.age(age), query -> query.sortBy(KEYSET_SORT).limit(size).scroll(position));
+    }
+
     /* Top 3 !*/
     List<Member> findTop3ByAgeGreaterThanOrderByAgeDesc(int age);
 
@@ -80,11 +118,13 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
 
 
     /* fetch join */
+    @ReadOnlyQuery
     @Query(value = "select m from Member m left join fetch m.team")
     List<Member> findMemberFetchJoin();
 
 
     /* @EntityGraph */
+    @ReadOnlyQuery
     @Override
     @EntityGraph(attributePaths = {"team"})
     List<Member> findAll();
@@ -104,7 +144,7 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     List<Member> findNamedEntityGraphByUsername(@Param("username") String username);
 
 
-    /* @QueryHints : readOnly 옵션 */
+    /* @QueryHints : readOnly 옵션 (메서드 하나에만 hint 를 줄 때. 여러 조회 메서드에는 @ReadOnlyQuery) */
     @QueryHints(value = @QueryHint(name = "org.hibernate.readOnly", value="true"))
     Member findReadOnlyByUsername(String username);
 
@@ -113,6 +153,40 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     List<Member> findLockByUsername(String username);
 
+    /*
+    @Lock + lock timeout 힌트 (jakarta.persistence.lock.timeout, ms)
+      findLockByUsername 은 timeout 이 없어서 경합이 생기면 DB 기본값만큼 계속 기다린다.
+      0 -> for update nowait, -2 -> for update skip locked (hibernate LockOptions.SKIP_LOCKED)
+    락을 못 잡으면 PessimisticLockingFailureException. 락 대기 시간 / 실패 수는 repository.lock.wait / repository.lock.timeouts
+    */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_LOCK_TIMEOUT, value = "3000"))
+    List<Member> findLockTimeoutByUsername(String username);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_LOCK_TIMEOUT, value = "0"))
+    List<Member> findLockNoWaitByUsername(String username);
+
+    /*
+    큐처럼 일감 가져가기 : 다른 트랜잭션이 잡고 있는 row 는 기다리지 않고 건너뛴다.
+    여러 worker 가 동시에 불러도 같은 row 를 두 번 가져가지 않는다. 가져간 row 는 같은 트랜잭션에서 age 를 바꿔서 다시 안 잡히게 한다.
+    */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_LOCK_TIMEOUT, value = "-2"))
+    List<Member> findSkipLockedByUsernameInAndAgeOrderByIdAsc(Collection<String> usernames, int age, Pageable pageable);
+
+    /*
+    비동기 조회 : repositoryExecutor 스레드에서 실행되고 바로 CompletableFuture 를 돌려준다. (AsyncRepositoryConfig)
+    트랜잭션/영속성 컨텍스트가 호출한 쪽과 다르므로 필요한 연관관계는 같이 읽어둔다. 못 찾으면 null.
+    app.repository-executor.timeout 을 query timeout 으로도 걸어서 DB 쪽에서도 끊는다. (AsyncRepositoryConfig)
+    */
+    @Async(AsyncRepositoryConfig.REPOSITORY_EXECUTOR)
+    @EntityGraph(attributePaths = {"team"})
+    CompletableFuture<Member> findAsyncById(Long id);
+
+    @Async(AsyncRepositoryConfig.REPOSITORY_EXECUTOR)
+    CompletableFuture<List<Member>> findAsyncByUsername(String username);
+
     List<UsernameOnly> findProjectionByUsername(String username);
     List<UsernameOnlyDto> findProjection2ByUsername(String username);
     <T> List<T> findProjection3ByUsername(String username, Class<T> type);
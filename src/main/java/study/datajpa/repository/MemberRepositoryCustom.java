@@ -1,10 +1,56 @@
 package study.datajpa.repository;
 
+import org.springframework.data.domain.Example;
+import org.springframework.data.jpa.domain.Specification;
+import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface MemberRepositoryCustom {
 
     List<Member> findMemberCustom();
+
+    /* 대량 저장 : batchSize 마다 flush 하고 저장한 Member 를 detach 해서 영속성 컨텍스트가 batchSize 이상 커지지 않게 한다. */
+    int saveAllBatched(Iterable<Member> members, int batchSize);
+
+    /*
+    전체 회원을 List 로 만들지 않고 커서로 한 줄씩 흘려보낸다.
+    트랜잭션 안에서 호출하고, 다 쓴 stream 은 꼭 close 해야 한다. (try-with-resources)
+    */
+    Stream<MemberDto> streamMemberDto(int fetchSize);
+
+    /*
+    bulkAgePlus 와 같은 벌크 연산이지만 영속성 컨텍스트를 clear 하지 않는다.
+    이미 1차 캐시에 올라와 있는 Member 들에도 같은 변경을 적용해서 다시 조회할 필요가 없다.
+    */
+    int bulkAgePlusInContext(int age);
+
+    /*
+    StatelessSession 으로 읽는다. 영속성 컨텍스트/스냅샷/1차 캐시가 아예 없다.
+    돌려받은 Member 는 처음부터 준영속이고 지연 로딩이 안 되므로 team 은 fetch join 으로 같이 읽는다.
+    (1차 캐시가 없어서 같은 팀이라도 row 마다 다른 Team 인스턴스)
+    */
+    @ReadOnlyQuery
+    List<Member> findMemberFetchJoinStateless();
+
+    /*
+    JpaSpecificationExecutor.findAll(Specification) 를 덮어쓴다.
+    MemberSpec 으로만 만든 조건(MemberSpec.Shaped)은 모양별로 캐시한 jpql 로 실행하고 (MemberQueryPlanCache)
+    나머지는 기존처럼 criteria 로 실행한다.
+    */
+    List<Member> findAll(Specification<Member> spec);
+
+    /*
+    QueryByExampleExecutor.findAll(Example) 를 덮어쓴다.
+    Member probe 는 matcher + 값이 있는 필드 모양별로 캐시한 jpql 로 실행한다. (MemberExampleQuery)
+    */
+    <S extends Member> List<S> findAll(Example<S> example);
+
+    /*
+    findProjection3ByUsername 과 같은 결과를 엔티티 없이 만든다. (MemberProjections)
+    프로젝션에 필요한 컬럼만 select 하고, 중첩 프로젝션(TeamInfo) 도 Team 엔티티를 읽지 않는다.
+    */
+    <T> List<T> findTupleProjectionByUsername(String username, Class<T> type);
 }
@@ -2,10 +2,30 @@ package study.datajpa.repository;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.data.domain.Example;
+import org.springframework.data.jpa.convert.QueryByExamplePredicateBuilder;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.EscapeCharacter;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 
 @RequiredArgsConstructor
     /* 클래스 이름은 ~~Impl 이라고 하자! 그러면 알아서 SpringBoot가 해준다. */
@@ -13,9 +33,186 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
 //    @PersistenceContext  --> 이걸 사용해서 해도 된다~
     private final EntityManager em;
+    private final MemberQueryPlanCache memberQueryPlanCache;
+    private final MemberProjections memberProjections;
+
     @Override
     public List<Member> findMemberCustom() {
         return em.createQuery("select m from Member m")
                 .getResultList();
     }
+
+    /*
+    save() 를 하나씩 부르면 건마다 트랜잭션/merge 판단을 거친다.
+    한 트랜잭션 안에서 persist 하고 batchSize 마다 flush -> insert 가 jdbc batch 로 묶여서 나간다.
+    (hibernate.jdbc.batch_size, order_inserts 설정 필요 - application.yml)
+    flush 한 엔티티를 내보내지 않으면 1차 캐시에 엔티티가 계속 쌓여서 메모리가 터진다.
+    em.clear() 는 호출한 쪽이 같은 트랜잭션에서 쓰던 엔티티(Team 등)까지 준영속으로 만들기 때문에,
+    여기서 persist 한 Member 만 detach 한다. (넘겨준 Member 는 저장 후 준영속 상태가 된다)
+    */
+    @Override
+    @Transactional
+    public int saveAllBatched(Iterable<Member> members, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize 는 1 이상이어야 합니다: " + batchSize);
+        }
+
+        int count = 0;
+        List<Member> batch = new ArrayList<>(batchSize);
+        for (Member member : members) {
+            em.persist(member);
+            batch.add(member);
+            count++;
+            if (batch.size() == batchSize) {
+                flushAndDetach(batch);
+            }
+        }
+        flushAndDetach(batch);
+        return count;
+    }
+
+    private void flushAndDetach(List<Member> batch) {
+        em.flush();
+        batch.forEach(em::detach);
+        batch.clear();
+    }
+
+    /*
+    Query.stream() 은 내부적으로 ScrollableResults(FORWARD_ONLY) 를 사용한다.
+    fetchSize 만큼씩 jdbc 에서 읽어오고, 그만큼 읽을 때마다 영속성 컨텍스트를 비워서 heap 이 일정하게 유지된다.
+    (MySQL 은 useCursorFetch=true 가 있어야 fetchSize 가 먹는다.)
+    */
+    @Override
+    public Stream<MemberDto> streamMemberDto(int fetchSize) {
+        AtomicLong rows = new AtomicLong();
+        return em.unwrap(Session.class)
+                .createQuery("select m from Member m left join fetch m.team order by m.id", Member.class)
+                .setFetchSize(fetchSize)
+                .setReadOnly(true)
+                .stream()
+                .map(member -> {
+                    Team team = member.getTeam();
+                    MemberDto dto = new MemberDto(member.getId(), member.getUsername(), team == null ? null : team.getName());
+                    if (rows.incrementAndGet() % fetchSize == 0) {
+                        em.clear();
+                    }
+                    return dto;
+                });
+    }
+
+    /*
+    @Modifying(clearAutomatically = true) 는 벌크 연산 후 영속성 컨텍스트를 통째로 날려서
+    트랜잭션에서 이미 읽어둔 엔티티를 전부 다시 select 하게 만든다.
+    여기서는 벌크 update 를 날린 뒤, 1차 캐시에 있는 Member 중 조건에 맞는 것만 메모리에서 똑같이 바꿔준다.
+    그냥 setAge 만 하면 변경감지에 걸려서 update 가 한번 더 나가므로,
+    readOnly 를 껐다 켜서 스냅샷을 지금 값으로 다시 찍어둔다. (변경감지 대상 아님)
+    */
+    @Override
+    @Transactional
+    public int bulkAgePlusInContext(int age) {
+        em.flush(); // 쌓여있던 변경이 스냅샷 갱신으로 묻히지 않도록 먼저 내보낸다.
+        int updated = em.createQuery("update Member m set m.age = m.age + 1 where m.age >= :age")
+                .setParameter("age", age)
+                .executeUpdate();
+
+        Session session = em.unwrap(Session.class);
+        for (Map.Entry<Object, EntityEntry> entry : session.unwrap(SessionImplementor.class)
+                .getPersistenceContextInternal()
+                .reentrantSafeEntityEntries()) {
+            if (entry.getKey() instanceof Member member && member.getAge() >= age) {
+                member.setAge(member.getAge() + 1);
+                if (!session.isReadOnly(member)) {
+                    session.setReadOnly(member, true);
+                    session.setReadOnly(member, false);
+                }
+            }
+        }
+        return updated;
+    }
+
+    /*
+    현재 트랜잭션의 커넥션을 그대로 넘겨서 StatelessSession 을 연다. (새 커넥션을 잡지 않는다)
+    */
+    @Override
+    public List<Member> findMemberFetchJoinStateless() {
+        Session session = em.unwrap(Session.class);
+        return session.doReturningWork(connection -> {
+            try (StatelessSession stateless = session.getSessionFactory()
+                    .withStatelessOptions()
+                    .connection(connection)
+                    .openStatelessSession()) {
+                return stateless.createQuery("select m from Member m left join fetch m.team", Member.class)
+                        .getResultList();
+            }
+        });
+    }
+
+    /*
+    Shaped 는 값이 달라도 모양이 같으면 같은 jpql 문자열 -> hibernate 가 해석해둔 plan 을 그대로 쓰고 값만 바인딩한다.
+    criteria 경로는 SimpleJpaRepository.findAll(spec) 과 같은 쿼리를 만든다.
+    SimpleJpaRepository 를 대신하므로 그쪽의 @Transactional(readOnly = true) 도 여기서 다시 붙인다. (replica 라우팅, 스냅샷 생략)
+    */
+    @Override
+    @Transactional(readOnly = true)
+    public List<Member> findAll(Specification<Member> spec) {
+        if (spec instanceof MemberSpec.Shaped shaped) {
+            String jpql = memberQueryPlanCache.jpql(MemberQueryPlanCache.SPECIFICATION, shaped.shape(), shaped::toJpql);
+            return bind(em.createQuery(jpql, Member.class), shaped.parameters()).getResultList();
+        }
+
+        CriteriaBuilder builder = em.getCriteriaBuilder();
+        CriteriaQuery<Member> query = builder.createQuery(Member.class);
+        Root<Member> root = query.from(Member.class);
+        Predicate predicate = spec == null ? null : spec.toPredicate(root, query, builder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return em.createQuery(query.select(root)).getResultList();
+    }
+
+    /*
+    probe 를 훑어서 모양이 같으면 같은 jpql -> hibernate plan 재사용. (MemberExampleQuery)
+    다루지 못하는 probe 는 SimpleJpaRepository 와 같은 QueryByExamplePredicateBuilder criteria 로 실행한다.
+    findAll(Specification) 과 마찬가지로 SimpleJpaRepository 의 @Transactional(readOnly = true) 를 다시 붙인다.
+    */
+    @Override
+    @Transactional(readOnly = true)
+    @SuppressWarnings("unchecked")
+    public <S extends Member> List<S> findAll(Example<S> example) {
+        MemberExampleQuery exampleQuery = MemberExampleQuery.of(example, em.getMetamodel());
+        if (exampleQuery != null) {
+            String jpql = memberQueryPlanCache.jpql(MemberQueryPlanCache.EXAMPLE, exampleQuery.shape(), exampleQuery::toJpql);
+            return (List<S>) bind(em.createQuery(jpql, Member.class), exampleQuery.parameters()).getResultList();
+        }
+
+        CriteriaBuilder builder = em.getCriteriaBuilder();
+        CriteriaQuery<S> query = builder.createQuery(example.getProbeType());
+        Root<S> root = query.from(example.getProbeType());
+        Predicate predicate = QueryByExamplePredicateBuilder.getPredicate(root, builder, example, EscapeCharacter.DEFAULT);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return em.createQuery(query.select(root)).getResultList();
+    }
+
+    @Override
+    public <T> List<T> findTupleProjectionByUsername(String username, Class<T> type) {
+        MemberProjections.Plan<T> plan = memberProjections.plan(type);
+        List<?> rows = em.createQuery(plan.jpql("m.username = :username"))
+                .setParameter("username", username)
+                .getResultList();
+        List<T> result = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            result.add(plan.map(row));
+        }
+        return result;
+    }
+
+    /* MemberSpec.Shaped / MemberExampleQuery 의 jpql 은 파라미터 이름이 :p0, :p1 ... */
+    private static <T> TypedQuery<T> bind(TypedQuery<T> query, List<Object> parameters) {
+        for (int i = 0; i < parameters.size(); i++) {
+            query.setParameter("p" + i, parameters.get(i));
+        }
+        return query;
+    }
 }
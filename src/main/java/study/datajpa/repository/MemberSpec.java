@@ -6,27 +6,118 @@ import org.springframework.util.StringUtils;
 import study.datajpa.entity.Member;
 import study.datajpa.entity.Team;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
 
 /* 결론 : 실무에서 사용하기에는... 다른 좋은게 있다!!!! */
 public class MemberSpec {
 
     public static Specification<Member> teamName(final String teamName) {
-        return new Specification<Member>(){
-            @Override
-            public Predicate toPredicate(Root<Member> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
+        if (StringUtils.isEmpty(teamName)) {
+            return new Shaped(List.of());
+        }
+        return new Shaped(List.of(new Term(Field.TEAM_NAME, teamName)));
+    }
+
+    /* username 이 null 이어도 "= null" 바인딩이라 아무것도 찾지 않는다. (criteria 의 equal(path, null) 과 같다) */
+    public static Specification<Member> username(final String username) {
+        return new Shaped(List.of(new Term(Field.USERNAME, username)));
+    }
+
+    public static Specification<Member> age(final int age) {
+        return new Shaped(List.of(new Term(Field.AGE, age)));
+    }
+
+    /*
+     조건의 모양(shape) 과 값(parameters) 을 따로 들고 있는 Specification.
+     MemberSpec 끼리 and 로 묶으면 계속 Shaped 로 남아서, 값만 다르고 모양이 같은 조건은 같은 jpql 이 된다.
+     (MemberRepositoryImpl.findAll(Specification) -> MemberQueryPlanCache)
+     or / not 이나 직접 만든 Specification 과 섞으면 보통 Specification 이 되어 criteria 로 실행된다.
+    */
+    public static final class Shaped implements Specification<Member> {
+
+        private final List<Term> terms;
+
+        private Shaped(List<Term> terms) {
+            this.terms = terms;
+        }
+
+        /* 값은 빼고 조건의 모양만. ex) "t.name = ? and m.username = ?" */
+        public String shape() {
+            return terms.stream().map(Term::shape).collect(Collectors.joining(" and "));
+        }
+
+        /* jpql 의 :p0, :p1 ... 순서대로 */
+        public List<Object> parameters() {
+            return terms.stream().map(Term::value).toList();
+        }
 
-                if (StringUtils.isEmpty(teamName)) {
-                    return null;
+        String toJpql() {
+            boolean joinTeam = terms.stream().anyMatch(term -> term.field() == Field.TEAM_NAME);
+            StringBuilder jpql = new StringBuilder("select m from Member m");
+            if (joinTeam) {
+                jpql.append(" join m.team t");
+            }
+            for (int i = 0; i < terms.size(); i++) {
+                jpql.append(i == 0 ? " where " : " and ").append(terms.get(i).field().jpqlPath).append(" = :p").append(i);
+            }
+            return jpql.toString();
+        }
+
+        @Override
+        public Predicate toPredicate(Root<Member> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
+            if (terms.isEmpty()) {
+                return null;
+            }
+
+            Join<Member, Team> team = null;
+            List<Predicate> predicates = new ArrayList<>(terms.size());
+            for (Term term : terms) {
+                Path<Object> path;
+                if (term.field() == Field.TEAM_NAME) {
+                    if (team == null) {
+                        team = root.join("team", JoinType.INNER);
+                    }
+                    path = team.get("name");
+                } else {
+                    path = root.get(term.field().attribute);
                 }
+                predicates.add(criteriaBuilder.equal(path, term.value()));
+            }
+            return criteriaBuilder.and(predicates.toArray(Predicate[]::new));
+        }
 
-                Join<Member, Team> t = root.join("team", JoinType.INNER);
-                return criteriaBuilder.equal(t.get("name"), teamName);
+        @Override
+        public Specification<Member> and(Specification<Member> other) {
+            if (other instanceof Shaped shaped) {
+                List<Term> merged = new ArrayList<>(terms);
+                merged.addAll(shaped.terms);
+                return new Shaped(List.copyOf(merged));
             }
-        };
+            return Specification.super.and(other);
+        }
     }
 
-    public static Specification<Member> username(final String username) {
-        return (Specification<Member>) (root, query, builder)->
-            builder.equal(root.get("username"), username);
+    private enum Field {
+        TEAM_NAME("t.name", "name"),
+        USERNAME("m.username", "username"),
+        AGE("m.age", "age");
+
+        private final String jpqlPath;
+        private final String attribute;
+
+        Field(String jpqlPath, String attribute) {
+            this.jpqlPath = jpqlPath;
+            this.attribute = attribute;
+        }
+    }
+
+    private record Term(Field field, Object value) {
+
+        String shape() {
+            return field.jpqlPath + " = ?";
+        }
     }
 }
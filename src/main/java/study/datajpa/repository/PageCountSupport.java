@@ -0,0 +1,90 @@
+package study.datajpa.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/*
+ Slice(size + 1 조회) 결과를 받아서 CountStrategy 에 맞게 Page 로 바꿔준다.
+ 다음 페이지가 없으면 offset + content 수가 곧 total 이므로 count 쿼리를 날리지 않는다.
+ 단, 마지막 페이지를 넘어간 요청(content 가 비었고 offset > 0)은 total 을 알 수 없으므로 count 한다. (PageableExecutionUtils.getPage 와 같은 규칙)
+ CACHED 는 조건(key)별 count 를 ttl 동안 재사용한다. 조건이 같으면 페이지가 달라도 같은 key 를 써야 한다.
+*/
+@Component
+public class PageCountSupport {
+
+    private static final int MAX_CACHED_KEYS = 1_000;
+
+    private final Duration ttl;
+    private final Map<String, CachedCount> cache = new ConcurrentHashMap<>();
+
+    private final Counter executed;
+    private final Counter skippedLastPage;
+    private final Counter cacheHit;
+    private final Counter skippedSlice;
+
+    public PageCountSupport(@Value("${app.page-count.ttl:10s}") Duration ttl, MeterRegistry meterRegistry) {
+        this.ttl = ttl;
+        this.executed = countQueries(meterRegistry, "executed");
+        this.skippedLastPage = countQueries(meterRegistry, "last-page");
+        this.cacheHit = countQueries(meterRegistry, "cached");
+        this.skippedSlice = countQueries(meterRegistry, "slice");
+    }
+
+    private static Counter countQueries(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("page.count.queries")
+                .description("count queries executed or avoided while building pages")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    public <T> Slice<T> toPage(String key, CountStrategy strategy, Slice<T> slice, LongSupplier countQuery) {
+        if (strategy == CountStrategy.NONE) {
+            skippedSlice.increment();
+            return slice;
+        }
+
+        Pageable pageable = slice.getPageable();
+        long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+        if (!slice.hasNext() && (slice.hasContent() || offset == 0)) {
+            skippedLastPage.increment();
+            return new PageImpl<>(slice.getContent(), pageable, offset + slice.getNumberOfElements());
+        }
+
+        long total = strategy == CountStrategy.CACHED ? cachedCount(key, countQuery) : count(countQuery);
+        return new PageImpl<>(slice.getContent(), pageable, total);
+    }
+
+    private long cachedCount(String key, LongSupplier countQuery) {
+        long now = System.nanoTime();
+        CachedCount cached = cache.get(key);
+        if (cached != null && cached.expiresAt - now > 0) {
+            cacheHit.increment();
+            return cached.count;
+        }
+
+        long count = count(countQuery);
+        if (cache.size() >= MAX_CACHED_KEYS) {
+            cache.clear();
+        }
+        cache.put(key, new CachedCount(count, now + ttl.toNanos()));
+        return count;
+    }
+
+    private long count(LongSupplier countQuery) {
+        executed.increment();
+        return countQuery.getAsLong();
+    }
+
+    private record CachedCount(long count, long expiresAt) {
+    }
+}
@@ -0,0 +1,110 @@
+package study.datajpa.repository;
+
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+import org.springframework.util.ClassUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.List;
+
+/*
+ 인터페이스 프로젝션의 구현 클래스를 바이트코드로 만든다. (MemberProjections)
+
+   final class MemberProjections$Projection implements NestedClosedProjections {
+       private final Object[] values;
+       MemberProjections$Projection(Object[] values) { this.values = values; }
+       public String getUsername() { return (String) values[0]; }
+       public TeamInfo getTeam() { return (TeamInfo) values[1]; }
+       public int getAge() { return ((Integer) values[2]).intValue(); }
+       public String toString() { return Arrays.toString(values); }
+   }
+
+ hidden class 라 이름이 겹치지 않고, 프로젝션 타입이 더 이상 쓰이지 않으면 같이 unload 된다.
+ 이 패키지에서 보이는(public 이거나 같은 패키지) 인터페이스만 구현할 수 있다.
+*/
+final class ProjectionClassGenerator implements Opcodes {
+
+    private static final String VALUES = "values";
+    private static final String VALUES_DESCRIPTOR = "[Ljava/lang/Object;";
+    private static final String CLASS_NAME = Type.getInternalName(MemberProjections.class) + "$Projection";
+
+    private ProjectionClassGenerator() {
+    }
+
+    /* getters[i] 가 values[i] 를 돌려주는 구현 클래스의 생성자. (Object[]) -> Object */
+    static MethodHandle generate(Class<?> type, List<Method> getters) {
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(V17, ACC_FINAL | ACC_SUPER, CLASS_NAME, null, "java/lang/Object",
+                new String[]{Type.getInternalName(type)});
+        writer.visitField(ACC_PRIVATE | ACC_FINAL, VALUES, VALUES_DESCRIPTOR, null, null).visitEnd();
+        constructor(writer);
+        for (int i = 0; i < getters.size(); i++) {
+            getter(writer, getters.get(i), i);
+        }
+        toString(writer);
+        writer.visitEnd();
+
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(writer.toByteArray(), true);
+            return lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class, Object[].class))
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+        } catch (IllegalAccessException | NoSuchMethodException | LinkageError e) {
+            throw new IllegalArgumentException("프로젝션 구현 클래스를 만들 수 없습니다 (public 인터페이스여야 합니다): " + type.getName(), e);
+        }
+    }
+
+    private static void constructor(ClassWriter writer) {
+        MethodVisitor method = writer.visitMethod(0, "<init>", "(" + VALUES_DESCRIPTOR + ")V", null, null);
+        method.visitCode();
+        method.visitVarInsn(ALOAD, 0);
+        method.visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        method.visitVarInsn(ALOAD, 0);
+        method.visitVarInsn(ALOAD, 1);
+        method.visitFieldInsn(PUTFIELD, CLASS_NAME, VALUES, VALUES_DESCRIPTOR);
+        method.visitInsn(RETURN);
+        method.visitMaxs(0, 0);
+        method.visitEnd();
+    }
+
+    /* return (반환 타입) values[index]  (primitive 면 unboxing) */
+    private static void getter(ClassWriter writer, Method getter, int index) {
+        MethodVisitor method = writer.visitMethod(ACC_PUBLIC, getter.getName(), Type.getMethodDescriptor(getter), null, null);
+        method.visitCode();
+        method.visitVarInsn(ALOAD, 0);
+        method.visitFieldInsn(GETFIELD, CLASS_NAME, VALUES, VALUES_DESCRIPTOR);
+        method.visitLdcInsn(index);
+        method.visitInsn(AALOAD);
+
+        Class<?> returnType = getter.getReturnType();
+        if (returnType.isPrimitive()) {
+            String wrapper = Type.getInternalName(ClassUtils.resolvePrimitiveIfNecessary(returnType));
+            method.visitTypeInsn(CHECKCAST, wrapper);
+            method.visitMethodInsn(INVOKEVIRTUAL, wrapper, returnType.getName() + "Value",
+                    "()" + Type.getDescriptor(returnType), false);
+            method.visitInsn(Type.getType(returnType).getOpcode(IRETURN));
+        } else {
+            if (returnType != Object.class) {
+                method.visitTypeInsn(CHECKCAST, Type.getInternalName(returnType));
+            }
+            method.visitInsn(ARETURN);
+        }
+        method.visitMaxs(0, 0);
+        method.visitEnd();
+    }
+
+    private static void toString(ClassWriter writer) {
+        MethodVisitor method = writer.visitMethod(ACC_PUBLIC, "toString", "()Ljava/lang/String;", null, null);
+        method.visitCode();
+        method.visitVarInsn(ALOAD, 0);
+        method.visitFieldInsn(GETFIELD, CLASS_NAME, VALUES, VALUES_DESCRIPTOR);
+        method.visitMethodInsn(INVOKESTATIC, "java/util/Arrays", "toString", "(" + VALUES_DESCRIPTOR + ")Ljava/lang/String;", false);
+        method.visitInsn(ARETURN);
+        method.visitMaxs(0, 0);
+        method.visitEnd();
+    }
+}
@@ -0,0 +1,18 @@
+package study.datajpa.repository;
+
+import java.lang.annotation.*;
+
+/*
+ 조회 전용 repository 메서드 표시. (ReadOnlyQueryInterceptor)
+ - 트랜잭션 밖에서 호출 : readOnly 트랜잭션을 열어서 실행 -> session 기본 readOnly + FlushMode.MANUAL (HibernateJpaDialect)
+ - 쓰기 트랜잭션 안에서 호출 : 트랜잭션은 그대로 두고, 이 호출에서 읽은 엔티티만 readOnly (스냅샷 없음, 변경감지 제외)
+   배치/쓰기 트랜잭션 중의 대량 조회도 스냅샷 메모리를 쓰지 않는다.
+ 어느 쪽이든 여기서 읽은 엔티티는 값을 바꿔도 update 가 안 나간다! 고칠 엔티티는 일반 메서드로 읽는다.
+ 인터페이스에 붙이면 @Modifying 이 아닌 쿼리 메서드 전체에 적용된다.
+ @QueryHints(org.hibernate.readOnly = true) 만 붙은 메서드도 같이 취급한다. (replica 프로파일이면 replica 로 읽는다)
+*/
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ReadOnlyQuery {
+}
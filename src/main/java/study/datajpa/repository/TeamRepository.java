@@ -1,7 +1,15 @@
 package study.datajpa.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.scheduling.annotation.Async;
+import study.datajpa.config.AsyncRepositoryConfig;
 import study.datajpa.entity.Team;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface TeamRepository extends JpaRepository<Team, Long> {
+
+    /* 비동기 조회 (MemberRepository.findAsyncById 참고) */
+    @Async(AsyncRepositoryConfig.REPOSITORY_EXECUTOR)
+    CompletableFuture<Team> findAsyncByName(String name);
 }
@@ -0,0 +1,76 @@
+package study.datajpa.support;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Optional;
+
+/*
+ AuditingEntityListener 는 insert/update 되는 엔티티마다 getCurrentAuditor() 를 부른다.
+ 사용자 조회(security context, session, 여기서는 UUID)를 트랜잭션(없으면 요청) 에 한 번만 하고 그 값을 재사용한다.
+ saveAllBatched 로 Member 를 1000건 넣어도 조회는 1번, 모든 행의 createdBy/lastModifiedBy 가 같은 값이다.
+ 트랜잭션도 요청도 없으면(배치 스레드 등) 매번 delegate 를 부른다.
+ delegate 호출 수는 auditor.lookups (scope=transaction|request|none) 로 본다.
+*/
+public class CachedAuditorAware implements AuditorAware<String> {
+
+    private static final String REQUEST_ATTRIBUTE = CachedAuditorAware.class.getName() + ".AUDITOR";
+
+    private final AuditorAware<String> delegate;
+    private final Counter transactionLookups;
+    private final Counter requestLookups;
+    private final Counter uncachedLookups;
+
+    public CachedAuditorAware(AuditorAware<String> delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.transactionLookups = lookups(meterRegistry, "transaction");
+        this.requestLookups = lookups(meterRegistry, "request");
+        this.uncachedLookups = lookups(meterRegistry, "none");
+    }
+
+    private static Counter lookups(MeterRegistry meterRegistry, String scope) {
+        return Counter.builder("auditor.lookups")
+                .description("auditor resolutions by the underlying AuditorAware")
+                .tag("scope", scope)
+                .register(meterRegistry);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Optional<String> getCurrentAuditor() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            Optional<String> auditor = (Optional<String>) TransactionSynchronizationManager.getResource(this);
+            if (auditor == null) {
+                auditor = delegate.getCurrentAuditor();
+                transactionLookups.increment();
+                TransactionSynchronizationManager.bindResource(this, auditor);
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        TransactionSynchronizationManager.unbindResourceIfPossible(CachedAuditorAware.this);
+                    }
+                });
+            }
+            return auditor;
+        }
+
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            Optional<String> auditor = (Optional<String>) request.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            if (auditor == null) {
+                auditor = delegate.getCurrentAuditor();
+                requestLookups.increment();
+                request.setAttribute(REQUEST_ATTRIBUTE, auditor, RequestAttributes.SCOPE_REQUEST);
+            }
+            return auditor;
+        }
+
+        uncachedLookups.increment();
+        return delegate.getCurrentAuditor();
+    }
+}
@@ -0,0 +1,48 @@
+package study.datajpa.support;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+import java.util.concurrent.Semaphore;
+
+/*
+ repository 호출(= JDBC 구간)에 동시에 들어갈 수 있는 스레드 수를 제한한다. (virtual 프로파일)
+ H2 / 많은 JDBC 드라이버는 synchronized 안에서 소켓 I/O 를 한다 -> virtual thread 가 carrier 를 붙잡은 채로(pinning) 블록된다.
+ 수천 개의 virtual thread 가 한꺼번에 들어가면 carrier 가 전부 묶여서 다른 요청까지 멈추므로,
+ 여기서 Semaphore 로 기다리게 한다. (Semaphore 대기는 pinning 없이 unmount 된다)
+ repository 안에서 다시 repository 를 부르는 경우(default 메서드 등)는 바깥 호출에서만 permit 을 잡는다.
+ 트랜잭션(커넥션 획득) 보다 바깥에 있어야 한다. (VirtualThreadConfig, RepositoryMetricsConfig 는 이 안쪽에 붙는다)
+*/
+public class JdbcConcurrencyLimiter implements MethodInterceptor {
+
+    private final Semaphore permits;
+    private final ThreadLocal<Boolean> holding = ThreadLocal.withInitial(() -> false);
+
+    public JdbcConcurrencyLimiter(int maxConcurrent) {
+        this.permits = new Semaphore(maxConcurrent, true);
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (holding.get()) {
+            return invocation.proceed();
+        }
+        permits.acquire();
+        holding.set(true);
+        try {
+            return invocation.proceed();
+        } finally {
+            holding.set(false);
+            permits.release();
+        }
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    /* permit 을 기다리는 스레드 수 */
+    public int waiting() {
+        return permits.getQueueLength();
+    }
+}
@@ -0,0 +1,8 @@
+package study.datajpa.support;
+
+public class LazyLoadGuardException extends IllegalStateException {
+
+    public LazyLoadGuardException(String message) {
+        super(message);
+    }
+}
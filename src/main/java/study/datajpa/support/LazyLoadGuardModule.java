@@ -0,0 +1,96 @@
+package study.datajpa.support;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.Entity;
+import org.hibernate.Hibernate;
+import org.hibernate.proxy.HibernateProxy;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/*
+ 엔티티를 json 으로 쓸 때 초기화 안 된 연관관계(Member.team 프록시, Team.members 컬렉션)를 건드리지 않게 막는다.
+ open-in-view 를 끄면 렌더링 중 지연 로딩은 LazyInitializationException 이 되고,
+ 켜 두면 응답을 다 쓸 때까지 커넥션을 잡고 select 를 날린다. 둘 다 json 렌더링까지 가서야 알게 된다.
+ FAIL 은 select 전에 어느 필드인지 알려주고 실패, IDS 는 프록시의 id 만 쓰고 컬렉션은 뺀다.
+ @Entity 클래스의 엔티티/컬렉션 필드에만 붙는다. (DTO 는 그대로)
+ 발생 횟수는 lazy.load.guard (property=Member.team, mode) 로 본다.
+*/
+public class LazyLoadGuardModule extends SimpleModule {
+
+    public LazyLoadGuardModule(LazyLoadGuardProperties properties, MeterRegistry meterRegistry) {
+        super("LazyLoadGuardModule");
+        setSerializerModifier(new BeanSerializerModifier() {
+            @Override
+            public List<BeanPropertyWriter> changeProperties(SerializationConfig config, BeanDescription beanDesc,
+                                                             List<BeanPropertyWriter> beanProperties) {
+                if (properties.getMode() == LazyLoadGuardProperties.Mode.OFF || !isEntity(beanDesc.getBeanClass())) {
+                    return beanProperties;
+                }
+                beanProperties.replaceAll(writer -> isLazyCandidate(writer.getType().getRawClass())
+                        ? new GuardedPropertyWriter(writer, beanDesc.getBeanClass(), properties.getMode(), meterRegistry)
+                        : writer);
+                return beanProperties;
+            }
+        });
+    }
+
+    private static boolean isEntity(Class<?> type) {
+        return AnnotatedElementUtils.hasAnnotation(type, Entity.class);
+    }
+
+    private static boolean isLazyCandidate(Class<?> type) {
+        return isEntity(type) || Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type);
+    }
+
+    private static final class GuardedPropertyWriter extends BeanPropertyWriter {
+
+        private final String property;
+        private final LazyLoadGuardProperties.Mode mode;
+        private final Counter guarded;
+
+        private GuardedPropertyWriter(BeanPropertyWriter base, Class<?> beanClass, LazyLoadGuardProperties.Mode mode,
+                                      MeterRegistry meterRegistry) {
+            super(base);
+            this.property = beanClass.getSimpleName() + "." + base.getName();
+            this.mode = mode;
+            this.guarded = Counter.builder("lazy.load.guard")
+                    .description("uninitialized lazy associations met while serializing entities")
+                    .tag("property", property)
+                    .tag("mode", mode.name().toLowerCase())
+                    .register(meterRegistry);
+        }
+
+        @Override
+        public void serializeAsField(Object bean, JsonGenerator gen, SerializerProvider prov) throws Exception {
+            Object value = get(bean);
+            if (value == null || Hibernate.isInitialized(value)) {
+                super.serializeAsField(bean, gen, prov);
+                return;
+            }
+
+            guarded.increment();
+            if (mode == LazyLoadGuardProperties.Mode.FAIL) {
+                throw new LazyLoadGuardException(property + " 가 초기화되지 않은 상태로 직렬화되려고 합니다."
+                        + " fetch join / @EntityGraph 로 같이 읽거나 DTO 로 바꿔서 응답하세요.");
+            }
+            if (value instanceof HibernateProxy proxy) {
+                gen.writeFieldName(_name);
+                gen.writeStartObject();
+                gen.writeObjectField("id", proxy.getHibernateLazyInitializer().getIdentifier());
+                gen.writeEndObject();
+            }
+            // 초기화 안 된 컬렉션은 id 도 select 해야 알 수 있으므로 필드를 뺀다.
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package study.datajpa.support;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.lazy-load-guard")
+public class LazyLoadGuardProperties {
+
+    /* json 으로 쓰려는 엔티티 필드가 초기화 안 된 프록시/컬렉션일 때 */
+    private Mode mode = Mode.FAIL;
+
+    public enum Mode {
+        FAIL,   // LazyLoadGuardException (지연 로딩으로 select 가 나가기 전에 실패)
+        IDS,    // 프록시는 {"id": ..} 만, 컬렉션은 필드를 빼고 쓴다.
+        OFF     // 그대로 직렬화 (open-in-view 가 켜져 있어야 지연 로딩이 된다)
+    }
+}
@@ -0,0 +1,42 @@
+package study.datajpa.support;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.regex.Pattern;
+
+/*
+ 락을 거는 select (for update / for share ...) 의 실행 시간을 스레드별로 더해둔다.
+ 실행 시간 = 락을 잡을 때까지 기다린 시간 + 조회. 락을 못 잡고 실패한 실행(nowait, lock timeout) 도 포함한다.
+ RepositoryMetricsInterceptor 가 @Lock 메서드 호출 전후 차이로 repository.lock.wait 를 기록한다.
+ p6spy 리스너라 decorator.datasource 가 켜져 있어야 동작한다. (SqlStatisticsListener 와 같다)
+*/
+@Component
+public class LockWaitListener extends SimpleJdbcEventListener {
+
+    private static final Pattern LOCKING = Pattern.compile("\\bfor\\s+(update|share|no\\s+key\\s+update|key\\s+share)\\b",
+            Pattern.CASE_INSENSITIVE);
+
+    /* [0] = 누적 nanos, [1] = 락을 거는 select 수 */
+    private final ThreadLocal<long[]> lockWait = ThreadLocal.withInitial(() -> new long[2]);
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        String sql = statementInformation.getSql();
+        if (sql != null && LOCKING.matcher(sql).find()) {
+            long[] current = lockWait.get();
+            current[0] += timeElapsedNanos;
+            current[1]++;
+        }
+    }
+
+    public long currentNanos() {
+        return lockWait.get()[0];
+    }
+
+    public long currentStatements() {
+        return lockWait.get()[1];
+    }
+}
@@ -0,0 +1,266 @@
+package study.datajpa.support;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.metamodel.MappingMetamodel;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.type.CollectionType;
+import org.hibernate.type.EntityType;
+import org.hibernate.type.Type;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+ N+1 감지기 (hibernate StatementInspector)
+
+ 요청(또는 트랜잭션) 단위로 나가는 select 를 sql 모양별로 센다.
+ hibernate 가 만드는 sql 은 파라미터가 ? 로 되어 있어서, member.getTeam().getName() 처럼
+ 프록시 초기화로 나가는 select 는 id 만 다르고 sql 문자열은 완전히 같다.
+ 같은 모양이 threshold 번 이상 나왔고, 그게 프록시/지연 컬렉션 초기화에서 나온 것이면 N+1 로 보고한다.
+ 보고에는 루트 쿼리를 실행한 repository 메서드 (RepositoryInvocationContext) 와
+ 반복 조회된 연관관계 (Member.team, Team.members : 루트 쿼리 테이블의 엔티티에서 찾은 hibernate 매핑) 가 들어간다.
+
+ app.n-plus-one.enabled=true 일 때만 동작한다.
+*/
+@Slf4j
+@Component
+public class NPlusOneDetector implements StatementInspector {
+
+    private static final Pattern FROM_TABLE = Pattern.compile("\\bfrom\\s+(\\w+)", Pattern.CASE_INSENSITIVE);
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+
+    private final ThreadLocal<Scope> currentScope = new ThreadLocal<>();
+    private final NPlusOneProperties properties;
+    private final MeterRegistry meterRegistry;
+    /* StatementInspector 가 EntityManagerFactory 를 만드는 데 쓰이므로 보고할 때 꺼낸다 */
+    private final ObjectProvider<EntityManagerFactory> entityManagerFactory;
+
+    public NPlusOneDetector(NPlusOneProperties properties, MeterRegistry meterRegistry,
+                            ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        if (!properties.isEnabled() || !sql.stripLeading().regionMatches(true, 0, "select", 0, 6)) {
+            return sql;
+        }
+
+        Scope scope = currentScope();
+        if (scope != null) {
+            scope.record(sql);
+        }
+        return sql;
+    }
+
+    /*
+    요청 단위로 묶고 싶을 때 (NPlusOneConfig 의 interceptor). 이미 열려 있으면 null 을 돌려준다.
+    try (Scope scope = detector.open()) { ... } 처럼 쓴다.
+    */
+    public Scope open() {
+        if (!properties.isEnabled() || currentScope.get() != null) {
+            return null;
+        }
+        Scope scope = new Scope();
+        currentScope.set(scope);
+        return scope;
+    }
+
+    /* 열린 scope 가 없으면 트랜잭션이 끝날 때까지를 하나의 scope 로 잡는다. */
+    private Scope currentScope() {
+        Scope scope = currentScope.get();
+        if (scope == null && TransactionSynchronizationManager.isSynchronizationActive()) {
+            Scope transactionScope = new Scope();
+            currentScope.set(transactionScope);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    transactionScope.close();
+                }
+            });
+            scope = transactionScope;
+        }
+        return scope;
+    }
+
+    private void report(Shape shape, String sql) {
+        String association = association(shape.rootTable, shape.table);
+        Counter.builder("n-plus-one.detections")
+                .description("repeated lazy-loading selects detected")
+                .tag("table", shape.table)
+                .tag("repository", shape.repository)
+                .tag("association", association)
+                .register(meterRegistry)
+                .increment();
+
+        String message = String.format("N+1 의심 : %s 를 지연 로딩으로 %d번 조회했습니다. (%s 테이블) repository : %s at %s%n  root query : %s%n  repeated : %s",
+                association, shape.count, shape.table, shape.repository, shape.origin, shape.rootSql, sql);
+        if (properties.isFailOnDetection()) {
+            throw new NPlusOneException(message);
+        }
+        log.warn(message);
+    }
+
+    public class Scope implements AutoCloseable {
+
+        private final Map<String, Shape> shapes = new HashMap<>();
+        private String lastRootSql;
+        private String lastRootRepository;
+
+        private void record(String sql) {
+            Shape shape = shapes.get(sql);
+            if (shape == null) {
+                shape = newShape(sql);
+                shapes.put(sql, shape);
+            }
+            if (!shape.lazy) {
+                lastRootSql = sql;
+                lastRootRepository = RepositoryInvocationContext.current();
+            }
+
+            shape.count++;
+            if (shape.lazy && shape.count == properties.getThreshold()) {
+                report(shape, sql);
+            }
+        }
+
+        /* 처음 보는 sql 모양일 때만 스택을 본다. (프록시 초기화에서 나온 건지, 어느 코드에서 건드렸는지) */
+        private Shape newShape(String sql) {
+            String table = table(sql);
+
+            boolean lazy = STACK_WALKER.walk(frames -> frames.anyMatch(frame -> isLazyInitialization(frame.getClassName())));
+            String origin = STACK_WALKER.walk(frames -> frames
+                    .filter(frame -> isOrigin(frame.getClassName()))
+                    .findFirst()
+                    .map(StackWalker.StackFrame::toStackTraceElement)
+                    .map(StackTraceElement::toString)
+                    .orElse("unknown"));
+            /* 지연 로딩이 repository 호출 안에서 일어났으면 그 메서드, 아니면 루트 쿼리를 실행한 메서드 */
+            String repository = RepositoryInvocationContext.current();
+            if (repository == null) {
+                repository = lastRootRepository == null ? "unknown" : lastRootRepository;
+            }
+            return new Shape(table, lazy, origin, lastRootSql, lastRootSql == null ? null : table(lastRootSql), repository);
+        }
+
+        @Override
+        public void close() {
+            if (currentScope.get() == this) {
+                currentScope.remove();
+            }
+        }
+    }
+
+    private static String table(String sql) {
+        Matcher matcher = FROM_TABLE.matcher(sql);
+        return matcher.find() ? matcher.group(1).toLowerCase(Locale.ROOT) : "unknown";
+    }
+
+    /*
+     table 을 가리키는 연관관계 ("Member.team", "Team.members").
+     루트 쿼리 테이블의 엔티티에 있는 연관관계를 먼저 찾고, 없으면 아무 엔티티에서나 찾는다.
+    */
+    private String association(String rootTable, String table) {
+        EntityManagerFactory emf = entityManagerFactory.getIfAvailable();
+        if (emf == null) {
+            return "unknown";
+        }
+        SessionFactoryImplementor sessionFactory = emf.unwrap(SessionFactoryImplementor.class);
+        MappingMetamodel metamodel = sessionFactory.getMappingMetamodel();
+        List<String> candidates = new ArrayList<>();
+        metamodel.forEachEntityDescriptor(owner -> {
+            String[] names = owner.getPropertyNames();
+            Type[] types = owner.getPropertyTypes();
+            for (int i = 0; i < names.length; i++) {
+                String target = associatedEntity(sessionFactory, types[i]);
+                if (target != null && table.equals(tableOf(metamodel.findEntityDescriptor(target)))) {
+                    String path = simpleName(owner.getEntityName()) + "." + names[i];
+                    if (rootTable != null && rootTable.equals(tableOf(owner))) {
+                        candidates.add(0, path);
+                    } else {
+                        candidates.add(path);
+                    }
+                }
+            }
+        });
+        return candidates.isEmpty() ? "unknown" : candidates.get(0);
+    }
+
+    /* @ManyToOne / @OneToOne 의 대상 엔티티, 엔티티 컬렉션의 원소 엔티티. 나머지는 null */
+    private static String associatedEntity(SessionFactoryImplementor sessionFactory, Type type) {
+        if (type instanceof EntityType entityType) {
+            return entityType.getAssociatedEntityName();
+        }
+        if (type instanceof CollectionType collectionType
+                && sessionFactory.getMappingMetamodel().getCollectionDescriptor(collectionType.getRole()).getElementType().isEntityType()) {
+            return collectionType.getAssociatedEntityName(sessionFactory);
+        }
+        return null;
+    }
+
+    private static String tableOf(EntityPersister persister) {
+        if (!(persister instanceof AbstractEntityPersister entityPersister)) {
+            return null;
+        }
+        String tableName = entityPersister.getTableName();
+        return tableName.substring(tableName.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private static String simpleName(String entityName) {
+        return entityName.substring(entityName.lastIndexOf('.') + 1);
+    }
+
+    /*
+     지연 로딩을 일으킨 우리 코드. 프록시(Team$HibernateProxy$..) 나 엔티티의 getter 는 건너뛰고
+     그 getter 를 부른 service / controller / repository 프레임을 찾는다.
+    */
+    private static boolean isOrigin(String className) {
+        return className.startsWith("study.datajpa.")
+                && !className.startsWith("study.datajpa.support.")
+                && !className.startsWith("study.datajpa.config.")
+                && !className.startsWith("study.datajpa.entity.")
+                && !className.contains("$HibernateProxy$");
+    }
+
+    private static boolean isLazyInitialization(String className) {
+        return className.startsWith("org.hibernate.proxy.")
+                || className.equals("org.hibernate.collection.spi.AbstractPersistentCollection")
+                || className.startsWith("org.hibernate.bytecode.enhance.spi.interceptor.");
+    }
+
+    private static class Shape {
+        private final String table;
+        private final boolean lazy;
+        private final String origin;
+        private final String rootSql;
+        private final String rootTable;
+        private final String repository;
+        private int count;
+
+        private Shape(String table, boolean lazy, String origin, String rootSql, String rootTable, String repository) {
+            this.table = table;
+            this.lazy = lazy;
+            this.origin = origin;
+            this.rootSql = rootSql;
+            this.rootTable = rootTable;
+            this.repository = repository;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package study.datajpa.support;
+
+public class NPlusOneException extends IllegalStateException {
+
+    public NPlusOneException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,19 @@
+package study.datajpa.support;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.n-plus-one")
+public class NPlusOneProperties {
+
+    private boolean enabled = false;
+
+    /* 같은 모양의 lazy loading select 가 이 횟수만큼 반복되면 N+1 로 본다. */
+    private int threshold = 3;
+
+    /* true 면 로그 대신 예외를 던진다. (테스트용) */
+    private boolean failOnDetection = false;
+}
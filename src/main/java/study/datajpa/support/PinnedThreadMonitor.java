@@ -0,0 +1,62 @@
+package study.datajpa.support;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import java.time.Duration;
+import java.util.stream.Collectors;
+
+/*
+ JFR 의 jdk.VirtualThreadPinned 이벤트(Java 21)를 받아서
+ jvm.threads.virtual.pinned 카운터를 올리고, 어디서 pinning 이 났는지 스택 윗부분을 경고로 남긴다.
+ -Djdk.tracePinnedThreads=short 는 표준 출력으로만 나오므로 운영에서는 이쪽을 본다.
+*/
+@Slf4j
+public class PinnedThreadMonitor implements InitializingBean, DisposableBean {
+
+    private static final int STACK_DEPTH = 8;
+
+    private final Duration threshold;
+    private final Counter pinned;
+    private RecordingStream stream;
+
+    public PinnedThreadMonitor(Duration threshold, MeterRegistry meterRegistry) {
+        this.threshold = threshold;
+        this.pinned = Counter.builder("jvm.threads.virtual.pinned")
+                .description("virtual thread 가 carrier 를 붙잡은 채 threshold 이상 블록된 횟수")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        stream = new RecordingStream();
+        stream.enable("jdk.VirtualThreadPinned").withThreshold(threshold).withStackTrace();
+        stream.onEvent("jdk.VirtualThreadPinned", event -> {
+            pinned.increment();
+            if (log.isWarnEnabled()) {
+                String stack = event.getStackTrace() == null ? "" : event.getStackTrace().getFrames().stream()
+                        .limit(STACK_DEPTH)
+                        .map(PinnedThreadMonitor::frame)
+                        .collect(Collectors.joining("\n\tat ", "\n\tat ", ""));
+                log.warn("virtual thread pinned {}ms{}", event.getDuration().toMillis(), stack);
+            }
+        });
+        stream.startAsync();
+    }
+
+    private static String frame(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+
+    @Override
+    public void destroy() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package study.datajpa.support;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.EntityStatistics;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/*
+ GET    /actuator/querystats[?top=50] : 쿼리 / 엔티티 / 2차 캐시 통계
+ DELETE /actuator/querystats          : 전부 0 부터 다시 센다. (배포 직후, 부하 테스트 전)
+                                        app.query-stats.reset-enabled=true 일 때만. 아니면 403
+ sql/jpql 원문이 그대로 나가므로 prod 프로파일에서는 web 으로 노출하지 않는다. (application.yml)
+
+  summary  : hibernate Statistics 전체 합계 (쿼리 실행, 가장 느린 쿼리, 엔티티 load/fetch, 2차 캐시, hql plan cache)
+  queries  : jpql(hql) 별 실행 수 / 결과 row 수 / 총·평균·최대 시간 (hibernate.generate_statistics)
+  sql      : 실제 나간 sql 모양별 실행 수 / 시간 / 마지막으로 부른 repository 메서드 (SqlStatisticsListener)
+  entities : 엔티티별 load (select 로 읽음) / fetch (지연 로딩·연관으로 읽음) / insert / update / delete
+  caches   : 2차 캐시 region 별 hit / miss / put (cache 프로파일에서만 region 이 있다)
+ 목록은 총 시간(또는 load + fetch, hit + miss) 이 큰 순으로 top 개.
+*/
+@Component
+@Endpoint(id = "querystats")
+public class QueryStatsEndpoint {
+
+    private final Statistics statistics;
+    private final SqlStatisticsListener sqlStatistics;
+    private final QueryStatsProperties properties;
+
+    public QueryStatsEndpoint(EntityManagerFactory entityManagerFactory, SqlStatisticsListener sqlStatistics,
+                              QueryStatsProperties properties) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.sqlStatistics = sqlStatistics;
+        this.properties = properties;
+    }
+
+    @ReadOperation
+    public QueryStatsReport report(@Nullable Integer top) {
+        int limit = top == null ? properties.getTop() : top;
+        return new QueryStatsReport(summary(), queries(limit), sqlStatistics.snapshot(limit), entities(limit), caches(limit));
+    }
+
+    @DeleteOperation
+    public void reset() {
+        if (!properties.isResetEnabled()) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "app.query-stats.reset-enabled=true 일 때만 초기화할 수 있습니다.");
+        }
+        statistics.clear();
+        sqlStatistics.reset();
+    }
+
+    private Summary summary() {
+        return new Summary(
+                statistics.isStatisticsEnabled(),
+                statistics.getQueryExecutionCount(),
+                statistics.getQueryExecutionMaxTime(),
+                statistics.getQueryExecutionMaxTimeQueryString(),
+                statistics.getPrepareStatementCount(),
+                statistics.getEntityLoadCount(),
+                statistics.getEntityFetchCount(),
+                statistics.getCollectionLoadCount(),
+                statistics.getCollectionFetchCount(),
+                statistics.getSecondLevelCacheHitCount(),
+                statistics.getSecondLevelCacheMissCount(),
+                statistics.getSecondLevelCachePutCount(),
+                statistics.getQueryPlanCacheHitCount(),
+                statistics.getQueryPlanCacheMissCount(),
+                sqlStatistics.trackedStatements(),
+                sqlStatistics.untrackedExecutions());
+    }
+
+    private List<QueryRow> queries(int limit) {
+        return Arrays.stream(statistics.getQueries())
+                .map(query -> {
+                    QueryStatistics stats = statistics.getQueryStatistics(query);
+                    return new QueryRow(query, stats.getExecutionCount(), stats.getExecutionRowCount(),
+                            stats.getExecutionTotalTime(), stats.getExecutionAvgTime(), stats.getExecutionMaxTime(),
+                            stats.getCacheHitCount(), stats.getCacheMissCount());
+                })
+                /* 평균은 ms 로 잘려서 1ms 안쪽 쿼리가 전부 0 이 된다. 총 시간, 같으면 실행 수 */
+                .sorted(Comparator.comparingLong(QueryRow::totalMillis).thenComparingLong(QueryRow::executions).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    private List<EntityRow> entities(int limit) {
+        return Arrays.stream(statistics.getEntityNames())
+                .map(entity -> {
+                    EntityStatistics stats = statistics.getEntityStatistics(entity);
+                    return new EntityRow(entity, stats.getLoadCount(), stats.getFetchCount(),
+                            stats.getInsertCount(), stats.getUpdateCount(), stats.getDeleteCount());
+                })
+                .sorted(Comparator.comparingLong((EntityRow row) -> row.loads() + row.fetches()).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    private List<CacheRow> caches(int limit) {
+        return Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+                .map(region -> {
+                    CacheRegionStatistics stats = statistics.getCacheRegionStatistics(region); // 엔티티/컬렉션/쿼리 region 모두
+                    return stats == null ? null : new CacheRow(region, stats.getHitCount(), stats.getMissCount(),
+                            stats.getPutCount(), stats.getElementCountInMemory());
+                })
+                .filter(Objects::nonNull)
+                .sorted(Comparator.comparingLong((CacheRow row) -> row.hits() + row.misses()).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    public record QueryStatsReport(Summary summary, List<QueryRow> queries,
+                                   List<SqlStatisticsListener.SqlStatistics> sql,
+                                   List<EntityRow> entities, List<CacheRow> caches) {
+    }
+
+    public record Summary(boolean statisticsEnabled, long queryExecutions, long queryMaxMillis, String slowestQuery,
+                          long preparedStatements, long entityLoads, long entityFetches,
+                          long collectionLoads, long collectionFetches,
+                          long cacheHits, long cacheMisses, long cachePuts,
+                          long queryPlanCacheHits, long queryPlanCacheMisses,
+                          int trackedSqlShapes, long untrackedSqlExecutions) {
+    }
+
+    public record QueryRow(String query, long executions, long rows, long totalMillis, long meanMillis, long maxMillis,
+                           long cacheHits, long cacheMisses) {
+    }
+
+    public record EntityRow(String entity, long loads, long fetches, long inserts, long updates, long deletes) {
+    }
+
+    public record CacheRow(String region, long hits, long misses, long puts, long elements) {
+    }
+}
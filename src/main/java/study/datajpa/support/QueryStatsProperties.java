@@ -0,0 +1,25 @@
+package study.datajpa.support;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.query-stats")
+public class QueryStatsProperties {
+
+    /* 이보다 오래 걸린 sql 은 바인딩 값, 호출한 repository 메서드와 함께 warn 로그 */
+    private Duration slowThreshold = Duration.ofMillis(200);
+
+    /* sql 모양별 통계를 최대 몇 개까지 모을지 (넘으면 새 모양은 세지 않는다) */
+    private int maxStatements = 1_000;
+
+    /* /actuator/querystats 에서 목록마다 보여줄 수 (총 시간이 긴 순) */
+    private int top = 20;
+
+    /* DELETE /actuator/querystats 허용 여부. 인증 없이 누구나 통계를 지울 수 있으므로 기본은 끈다 */
+    private boolean resetEnabled = false;
+}
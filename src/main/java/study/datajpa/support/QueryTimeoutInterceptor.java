@@ -0,0 +1,71 @@
+package study.datajpa.support;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/*
+ 대상 repository 메서드가 만드는 쿼리에 jakarta.persistence.query.timeout 을 건다. (AsyncRepositoryConfig)
+ hibernate 는 session 프로퍼티의 query timeout 을 그 session 에서 만드는 쿼리마다 힌트로 넣는다.
+ - 스레드에 묶인 EntityManager 가 없으면 (트랜잭션 밖, @Async 스레드) OpenEntityManagerInView 처럼
+   호출 동안만 EntityManager 를 열어서 묶는다. 호출이 끝나면 닫으므로 돌려준 엔티티는 이전과 같이 준영속이다.
+ - 이미 묶여 있으면 (트랜잭션 안) 그 EntityManager 에 잠깐 걸었다가 되돌린다. (원래 없었으면 0 = 제한 없음)
+ 메서드에 @QueryHints 로 직접 준 timeout 이 있으면 그 값이 이긴다.
+*/
+public class QueryTimeoutInterceptor implements MethodInterceptor {
+
+    private final Predicate<Method> timeoutMethod;
+    private final Supplier<Duration> timeout;
+    private final ObjectProvider<EntityManagerFactory> entityManagerFactory;
+    private final Map<Method, Boolean> cache = new ConcurrentHashMap<>();
+
+    public QueryTimeoutInterceptor(Predicate<Method> timeoutMethod, Supplier<Duration> timeout,
+                                   ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+        this.timeoutMethod = timeoutMethod;
+        this.timeout = timeout;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (!cache.computeIfAbsent(invocation.getMethod(), timeoutMethod::test)) {
+            return invocation.proceed();
+        }
+
+        EntityManagerFactory emf = entityManagerFactory.getObject();
+        int timeoutMillis = Math.toIntExact(timeout.get().toMillis());
+        if (TransactionSynchronizationManager.getResource(emf) instanceof EntityManagerHolder holder) {
+            EntityManager em = holder.getEntityManager();
+            Object previous = em.getProperties().getOrDefault(SpecHints.HINT_SPEC_QUERY_TIMEOUT, 0);
+            em.setProperty(SpecHints.HINT_SPEC_QUERY_TIMEOUT, timeoutMillis);
+            try {
+                return invocation.proceed();
+            } finally {
+                em.setProperty(SpecHints.HINT_SPEC_QUERY_TIMEOUT, previous);
+            }
+        }
+
+        EntityManager em = emf.createEntityManager();
+        em.setProperty(SpecHints.HINT_SPEC_QUERY_TIMEOUT, timeoutMillis);
+        TransactionSynchronizationManager.bindResource(emf, new EntityManagerHolder(em));
+        try {
+            return invocation.proceed();
+        } finally {
+            TransactionSynchronizationManager.unbindResource(emf);
+            EntityManagerFactoryUtils.closeEntityManager(em);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package study.datajpa.support;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.hibernate.Session;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.stream.BaseStream;
+
+/*
+ @ReadOnlyQuery 메서드를 읽기 전용으로 실행한다.
+ - 트랜잭션이 없으면 readOnly 트랜잭션을 연다. (replica 라우팅, FlushMode.MANUAL)
+ - 쓰기 트랜잭션 안이면 호출하는 동안만 session 의 기본값을 readOnly 로 바꾼다.
+   그 사이에 읽은 엔티티는 스냅샷을 만들지 않고 변경감지에서 빠진다. (이미 영속성 컨텍스트에 있던 엔티티는 그대로)
+ - readOnly 트랜잭션 안이면 이미 session 이 readOnly 라 그대로 실행한다.
+ Stream 을 돌려주는 메서드는 호출이 끝난 뒤에 읽으므로 건드리지 않는다. (필요하면 @QueryHints(org.hibernate.readOnly))
+*/
+public class ReadOnlyQueryInterceptor implements MethodInterceptor {
+
+    private static final TransactionDefinition READ_ONLY;
+
+    static {
+        DefaultTransactionDefinition definition = new DefaultTransactionDefinition();
+        definition.setReadOnly(true);
+        READ_ONLY = definition;
+    }
+
+    private final Predicate<Method> readOnlyMethod;
+    private final ObjectProvider<PlatformTransactionManager> transactionManager;
+    private final ObjectProvider<EntityManagerFactory> entityManagerFactory;
+    private final Map<Method, Boolean> cache = new ConcurrentHashMap<>();
+
+    public ReadOnlyQueryInterceptor(Predicate<Method> readOnlyMethod,
+                                    ObjectProvider<PlatformTransactionManager> transactionManager,
+                                    ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+        this.readOnlyMethod = readOnlyMethod;
+        this.transactionManager = transactionManager;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Method method = invocation.getMethod();
+        if (!cache.computeIfAbsent(method, readOnlyMethod::test)) {
+            return invocation.proceed();
+        }
+
+        if (BaseStream.class.isAssignableFrom(method.getReturnType())
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return invocation.proceed();
+        }
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return inReadOnlyTransaction(invocation);
+        }
+        return inReadOnlySession(invocation);
+    }
+
+    private Object inReadOnlySession(MethodInvocation invocation) throws Throwable {
+        EntityManager em = EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory.getObject());
+        if (em == null) {
+            return invocation.proceed();
+        }
+        Session session = em.unwrap(Session.class);
+        boolean previous = session.isDefaultReadOnly();
+        session.setDefaultReadOnly(true);
+        try {
+            return invocation.proceed();
+        } finally {
+            session.setDefaultReadOnly(previous);
+        }
+    }
+
+    private Object inReadOnlyTransaction(MethodInvocation invocation) throws Throwable {
+        PlatformTransactionManager txManager = transactionManager.getObject();
+        TransactionStatus status = txManager.getTransaction(READ_ONLY);
+        Object result;
+        try {
+            result = invocation.proceed();
+        } catch (Throwable ex) {
+            txManager.rollback(status);
+            throw ex;
+        }
+        txManager.commit(status);
+        return result;
+    }
+}
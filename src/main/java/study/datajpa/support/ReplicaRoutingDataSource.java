@@ -0,0 +1,165 @@
+package study.datajpa.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ readOnly 트랜잭션은 replica 로, 나머지는 primary 로 보낸다.
+ 커넥션을 얻는 시점에 트랜잭션이 readOnly 인지 알아야 하므로 LazyConnectionDataSourceProxy 로 감싸서 써야 한다.
+ (JpaTransactionManager 는 readOnly 표시를 하기 전에 커넥션부터 잡는다.)
+
+ replica 는 주기적으로 probe 해서
+    - 접속이 안 되거나 복제 지연이 maxLag 를 넘으면 제외
+    - 남은 replica 중에서 ROUND_ROBIN 또는 LEAST_LATENCY 로 선택
+    - 하나도 안 남으면 primary 로 읽는다.
+*/
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    public static final String PRIMARY = "primary";
+
+    public enum Selection {
+        ROUND_ROBIN, LEAST_LATENCY
+    }
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final Selection selection;
+    private final Duration maxLag;
+    private final String lagQuery;
+    private final AtomicInteger next = new AtomicInteger();
+    private ScheduledExecutorService prober;
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas,
+                                    Selection selection, Duration maxLag, String lagQuery) {
+        this.primary = primary;
+        this.replicas = replicas.entrySet().stream()
+                .map(entry -> new Replica(entry.getKey(), entry.getValue()))
+                .toList();
+        this.selection = selection;
+        this.maxLag = maxLag;
+        this.lagQuery = lagQuery;
+
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    /* 첫 probe 전까지 replica 는 unhealthy -> primary 로 읽는다. */
+    public void startProbing(Duration interval) {
+        prober = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-probe");
+            thread.setDaemon(true);
+            return thread;
+        });
+        prober.scheduleWithFixedDelay(this::probe, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        Replica replica = select();
+        return replica == null ? PRIMARY : replica.name;
+    }
+
+    private Replica select() {
+        List<Replica> healthy = replicas.stream().filter(replica -> replica.healthy).toList();
+        if (healthy.isEmpty()) {
+            return null;
+        }
+        if (selection == Selection.LEAST_LATENCY) {
+            return healthy.stream().min(Comparator.comparingLong(replica -> replica.latencyNanos)).get();
+        }
+        return healthy.get(Math.floorMod(next.getAndIncrement(), healthy.size()));
+    }
+
+    public void probe() {
+        for (Replica replica : replicas) {
+            boolean healthy;
+            long start = System.nanoTime();
+            try (Connection connection = replica.dataSource.getConnection()) {
+                double lagSeconds = lag(connection);
+                long latency = System.nanoTime() - start;
+                /* 한 번 튄 값에 휘둘리지 않게 이동 평균 */
+                replica.latencyNanos = replica.latencyNanos == 0 ? latency : (replica.latencyNanos * 7 + latency) / 8;
+                healthy = lagSeconds * 1000 <= maxLag.toMillis();
+                if (!healthy && replica.healthy) {
+                    log.warn("replica {} 복제 지연 {}s > {} -> primary 로 읽습니다.", replica.name, lagSeconds, maxLag);
+                }
+            } catch (SQLException e) {
+                healthy = false;
+                if (replica.healthy) {
+                    log.warn("replica {} 접속 실패 -> 제외합니다. {}", replica.name, e.getMessage());
+                }
+            }
+            if (healthy && !replica.healthy) {
+                log.info("replica {} 사용 (latency {}us)", replica.name, replica.latencyNanos / 1000);
+            }
+            replica.healthy = healthy;
+        }
+    }
+
+    private double lag(Connection connection) throws SQLException {
+        if (lagQuery == null || lagQuery.isBlank()) {
+            return connection.isValid(1) ? 0 : Double.MAX_VALUE;
+        }
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(lagQuery)) {
+            return resultSet.next() ? resultSet.getDouble(1) : 0;
+        }
+    }
+
+    public boolean isHealthy(String name) {
+        return replicas.stream().anyMatch(replica -> replica.name.equals(name) && replica.healthy);
+    }
+
+    /*
+     replica 커넥션 풀은 여기서 닫는다. (ReplicaDataSourceConfig 가 설정 개수만큼 만든 풀이라 빈이 아니다)
+     primary 는 빈(primaryDataSource) 이라 spring 이 닫는다.
+    */
+    @Override
+    public void destroy() throws Exception {
+        if (prober != null) {
+            prober.shutdownNow();
+        }
+        for (Replica replica : replicas) {
+            close(replica.dataSource);
+        }
+    }
+
+    private static void close(DataSource dataSource) throws Exception {
+        if (dataSource instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy;
+        private volatile long latencyNanos;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package study.datajpa.support;
+
+/*
+ 지금 스레드에서 실행 중인 repository 메서드 ("MemberRepository.findByUsername").
+ RepositoryMetricsInterceptor 가 호출 전후로 넣고 빼고, 느린 쿼리 로그가 호출한 곳으로 쓴다. (SqlStatisticsListener)
+ repository 안에서 다른 repository 를 부르면 안쪽 메서드가 보이고, 끝나면 바깥 메서드로 돌아간다.
+*/
+public final class RepositoryInvocationContext {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private RepositoryInvocationContext() {
+    }
+
+    /* 이전 값을 돌려준다. finally 에서 exit(previous) */
+    static String enter(String invocation) {
+        String previous = CURRENT.get();
+        CURRENT.set(invocation);
+        return previous;
+    }
+
+    static void exit(String previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    public static String current() {
+        return CURRENT.get();
+    }
+}
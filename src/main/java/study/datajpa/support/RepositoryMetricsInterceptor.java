@@ -0,0 +1,217 @@
+package study.datajpa.support;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.LockTimeoutException;
+import jakarta.persistence.PessimisticLockException;
+import jakarta.persistence.QueryHint;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.BaseStream;
+import java.util.stream.Collectors;
+
+/*
+ repository 메서드 호출마다 시간 / 결과 row 수 / 나간 sql 수를 기록한다.
+    repository.invocations            (timer)   : p50 / p95 / p99
+    repository.invocation.rows        (summary) : 결과 크기 (컬렉션/Slice 크기, Optional 0|1, @Modifying 은 변경 row 수,
+                                                  count 같은 숫자 하나짜리 결과는 1)
+    repository.invocation.statements  (summary) : 호출 한번에 나간 sql 수
+ tag : repository, method, kind(derived, query, named, crud, specification, example, custom, default, jpa)
+   method 는 파라미터 타입까지 넣은 짧은 시그니처 (findAll(Pageable), findAll(Specification)) : 오버로드가 한 시계열로 섞이지 않게
+
+ @Lock 메서드는 추가로 (tag : repository, method, mode, timeout = wait | nowait | skip-locked | 3000ms)
+    repository.lock.wait      (timer)   : 호출 안에서 나간 select ... for update 의 실행 시간 (락 대기 포함, LockWaitListener)
+                                          결과 매핑 / flush 등 호출의 나머지 시간은 빠진다. p6spy 가 꺼져 있으면 기록하지 않는다.
+    repository.lock.timeouts  (counter) : 락을 못 잡고 실패한 수 (lock timeout, nowait)
+
+ 호출 중에는 "MemberRepository.findByUsername" 을 RepositoryInvocationContext 에 넣어둔다. (느린 쿼리 로그의 호출한 곳, 메서드 이름만)
+*/
+public class RepositoryMetricsInterceptor implements MethodInterceptor {
+
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+    private final String repository;
+    private final Function<Method, String> kindResolver;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final ObjectProvider<StatementCounter> statementCounter;
+    private final ObjectProvider<LockWaitListener> lockWaitListener;
+    private final Map<Method, Meters> meters = new ConcurrentHashMap<>();
+
+    public RepositoryMetricsInterceptor(String repository, Function<Method, String> kindResolver,
+                                        ObjectProvider<MeterRegistry> meterRegistry,
+                                        ObjectProvider<StatementCounter> statementCounter,
+                                        ObjectProvider<LockWaitListener> lockWaitListener) {
+        this.repository = repository;
+        this.kindResolver = kindResolver;
+        this.meterRegistry = meterRegistry;
+        this.statementCounter = statementCounter;
+        this.lockWaitListener = lockWaitListener;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Method method = invocation.getMethod();
+        if (method.getDeclaringClass() == Object.class) {
+            return invocation.proceed();
+        }
+
+        Meters meters = this.meters.computeIfAbsent(method, this::createMeters);
+        String previousInvocation = RepositoryInvocationContext.enter(meters.invocation);
+        StatementCounter counter = statementCounter.getIfAvailable();
+        long statementsBefore = counter == null ? 0 : counter.current();
+        LockWaitListener lockWait = meters.lock == null ? null : lockWaitListener.getIfAvailable();
+        long lockNanosBefore = lockWait == null ? 0 : lockWait.currentNanos();
+        long lockStatementsBefore = lockWait == null ? 0 : lockWait.currentStatements();
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            Object result = invocation.proceed();
+            success = true;
+            long rows = rows(result, meters.modifying);
+            if (rows >= 0) {
+                meters.rows.record(rows);
+            }
+            return result;
+        } catch (PessimisticLockingFailureException | PessimisticLockException | LockTimeoutException e) {
+            if (meters.lock != null) {
+                meters.lock.timeouts.increment();
+            }
+            throw e;
+        } finally {
+            RepositoryInvocationContext.exit(previousInvocation);
+            if (lockWait != null && lockWait.currentStatements() > lockStatementsBefore) {
+                meters.lock.waitTime.record(lockWait.currentNanos() - lockNanosBefore, TimeUnit.NANOSECONDS);
+            }
+            (success ? meters.success : meters.error).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (counter != null) {
+                meters.statements.record(counter.current() - statementsBefore);
+            }
+        }
+    }
+
+    private Meters createMeters(Method method) {
+        MeterRegistry registry = meterRegistry.getObject();
+        String kind = kindResolver.apply(method);
+        String name = signature(method);
+        return new Meters(
+                repository + "." + method.getName(),
+                AnnotatedElementUtils.hasAnnotation(method, Modifying.class),
+                timer(registry, name, kind, "success"),
+                timer(registry, name, kind, "error"),
+                DistributionSummary.builder("repository.invocation.rows")
+                        .tags("repository", repository, "method", name, "kind", kind)
+                        .publishPercentiles(PERCENTILES)
+                        .register(registry),
+                DistributionSummary.builder("repository.invocation.statements")
+                        .tags("repository", repository, "method", name, "kind", kind)
+                        .publishPercentiles(PERCENTILES)
+                        .register(registry),
+                lockMeters(registry, method));
+    }
+
+    private LockMeters lockMeters(MeterRegistry registry, Method method) {
+        Lock lock = AnnotatedElementUtils.findMergedAnnotation(method, Lock.class);
+        if (lock == null) {
+            return null;
+        }
+        String[] tags = {"repository", repository, "method", signature(method),
+                "mode", lock.value().name(), "timeout", lockTimeout(method)};
+        return new LockMeters(
+                Timer.builder("repository.lock.wait")
+                        .tags(tags)
+                        .publishPercentiles(PERCENTILES)
+                        .publishPercentileHistogram()
+                        .register(registry),
+                Counter.builder("repository.lock.timeouts")
+                        .tags(tags)
+                        .register(registry));
+    }
+
+    /* findSkipLockedByUsernameInAndAgeOrderByIdAsc(Collection,int,Pageable) */
+    private static String signature(Method method) {
+        return Arrays.stream(method.getParameterTypes())
+                .map(Class::getSimpleName)
+                .collect(Collectors.joining(",", method.getName() + "(", ")"));
+    }
+
+    /* jakarta.persistence.lock.timeout 힌트 (ms). 0 = nowait, -2 = skip locked (hibernate LockOptions) */
+    private static String lockTimeout(Method method) {
+        QueryHints hints = AnnotatedElementUtils.findMergedAnnotation(method, QueryHints.class);
+        if (hints != null) {
+            for (QueryHint hint : hints.value()) {
+                if (SpecHints.HINT_SPEC_LOCK_TIMEOUT.equals(hint.name())) {
+                    return switch (hint.value()) {
+                        case "0" -> "nowait";
+                        case "-2" -> "skip-locked";
+                        default -> hint.value() + "ms";
+                    };
+                }
+            }
+        }
+        return "wait";
+    }
+
+    private Timer timer(MeterRegistry registry, String method, String kind, String outcome) {
+        return Timer.builder("repository.invocations")
+                .tags("repository", repository, "method", method, "kind", kind, "outcome", outcome)
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /*
+     크기를 알 수 없는 결과(Stream, void 등)는 -1
+     숫자는 @Modifying 일 때만 변경 row 수. count() 의 1,000,000 은 row 백만 개가 아니라 값 하나다.
+    */
+    private static long rows(Object result, boolean modifying) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Slice<?> slice) {
+            return slice.getNumberOfElements();
+        }
+        if (result instanceof Window<?> window) {
+            return window.size();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        if (result instanceof Integer || result instanceof Long) {
+            return modifying ? ((Number) result).longValue() : 1;
+        }
+        if (result instanceof BaseStream<?, ?> || result instanceof Boolean) {
+            return -1;
+        }
+        return 1;
+    }
+
+    private record Meters(String invocation, boolean modifying, Timer success, Timer error, DistributionSummary rows, DistributionSummary statements,
+                          LockMeters lock) {
+    }
+
+    private record LockMeters(Timer waitTime, Counter timeouts) {
+    }
+}
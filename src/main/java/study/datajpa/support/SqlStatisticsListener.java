@@ -0,0 +1,131 @@
+package study.datajpa.support;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ jdbc 로 실제 나간 sql 의 모양(? 가 그대로 있는 sql) 별 실행 수 / 총 시간 / 최대 시간 / 실패 수. (/actuator/querystats)
+ p6spy 의 JdbcEventListener 빈이라 decorator.datasource 가 켜져 있어야 동작한다. (prod 는 로그만 끄고 켜둔다 - application.yml)
+
+ app.query-stats.slow-threshold 를 넘으면 바인딩 값이 들어간 sql 과 호출한 repository 메서드를 warn 으로 남긴다.
+   느린 쿼리 : 312ms at MemberRepository.findByUsername
+     select ... where m1_0.username='member1'
+ repository 밖에서 나간 sql 은 호출한 곳이 "-". 느린 쿼리 수는 query.slow (caller) 메트릭.
+*/
+@Slf4j
+@Component
+public class SqlStatisticsListener extends SimpleJdbcEventListener {
+
+    private static final String UNKNOWN_CALLER = "-";
+
+    private final QueryStatsProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Entry> statements = new ConcurrentHashMap<>();
+    private final Map<String, Counter> slowCounters = new ConcurrentHashMap<>();
+    private final LongAdder untracked = new LongAdder();
+
+    public SqlStatisticsListener(QueryStatsProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        String sql = statementInformation.getSql();
+        if (sql == null || sql.isBlank()) {
+            return;
+        }
+
+        String caller = RepositoryInvocationContext.current();
+        Entry entry = statements.get(sql);
+        if (entry == null) {
+            if (statements.size() >= properties.getMaxStatements()) {
+                untracked.increment();
+            } else {
+                entry = statements.computeIfAbsent(sql, key -> new Entry());
+            }
+        }
+        if (entry != null) {
+            entry.record(timeElapsedNanos, e != null, caller);
+        }
+
+        if (timeElapsedNanos >= properties.getSlowThreshold().toNanos()) {
+            String slowCaller = caller == null ? UNKNOWN_CALLER : caller;
+            slowCounters.computeIfAbsent(slowCaller, key -> Counter.builder("query.slow")
+                            .description("statements slower than app.query-stats.slow-threshold")
+                            .tag("caller", key)
+                            .register(meterRegistry))
+                    .increment();
+            log.warn("느린 쿼리 : {}ms at {}{}\n  {}", TimeUnit.NANOSECONDS.toMillis(timeElapsedNanos), slowCaller,
+                    e == null ? "" : " (" + e.getMessage() + ")", statementInformation.getSqlWithValues());
+        }
+    }
+
+    /* 총 시간이 긴 순으로 limit 개 */
+    public List<SqlStatistics> snapshot(int limit) {
+        return statements.entrySet().stream()
+                .map(entry -> entry.getValue().snapshot(entry.getKey()))
+                .sorted(Comparator.comparingDouble(SqlStatistics::totalMillis).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    public int trackedStatements() {
+        return statements.size();
+    }
+
+    /* 통계 한도(max-statements) 가 차서 세지 못한 실행 수 */
+    public long untrackedExecutions() {
+        return untracked.sum();
+    }
+
+    public void reset() {
+        statements.clear();
+        untracked.reset();
+    }
+
+    public record SqlStatistics(String sql, long executions, long errors, double totalMillis, double meanMillis,
+                                double maxMillis, String lastCaller) {
+    }
+
+    private static final class Entry {
+
+        private final LongAdder executions = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private volatile String lastCaller;
+
+        void record(long nanos, boolean error, String caller) {
+            executions.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+            if (error) {
+                errors.increment();
+            }
+            if (caller != null) {
+                lastCaller = caller;
+            }
+        }
+
+        SqlStatistics snapshot(String sql) {
+            long count = executions.sum();
+            double total = totalNanos.sum() / 1_000_000.0;
+            return new SqlStatistics(sql, count, errors.sum(), total, count == 0 ? 0 : total / count,
+                    maxNanos.get() / 1_000_000.0, lastCaller == null ? UNKNOWN_CALLER : lastCaller);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package study.datajpa.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+/*
+ 스레드별로 지금까지 나간 sql 수를 센다.
+ repository 호출 전후의 차이로 "호출 한번에 sql 몇 개" 를 구한다. (RepositoryMetricsInterceptor)
+*/
+@Component
+public class StatementCounter implements StatementInspector {
+
+    private final ThreadLocal<long[]> count = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public String inspect(String sql) {
+        count.get()[0]++;
+        return sql;
+    }
+
+    public long current() {
+        return count.get()[0];
+    }
+}
@@ -0,0 +1,142 @@
+package study.datajpa.support;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.OptimizableGenerator;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ id 를 블록 단위로 받아와서 메모리에서 나눠주는 시퀀스 생성기. (Member, Team 의 @GenericGenerator)
+
+ hibernate 의 pooled-lo 는 블록이 하나라 insert 하는 모든 스레드가 같은 lock 을 잡는다.
+ 여기서는 블록을 stripes 개로 나누고 스레드마다 하나씩 맡긴다. 블록이 떨어진 stripe 만 시퀀스를 부른다.
+   시퀀스 값 = 블록의 시작값, 블록 = [값, 값 + block-size)  (pooled-lo 와 같은 규칙이라 DB 시퀀스는 increment by block-size)
+ 그래서 id 는 유일하지만 insert 순서대로 증가하지는 않는다.
+
+ time-ordered=true 면 시퀀스를 아예 부르지 않고 시간순 64bit id 를 만든다.
+   41bit 밀리초(2020-01-01 부터) | 10bit node-id | 12bit 밀리초 안 순번  (노드마다 초당 400만 개)
+   여러 서버에서 쓰면 node-id 를 서버마다 다르게 줘야 한다.
+
+ 설정 : @Parameter 가 기본값, spring.jpa.properties.app.id.<시퀀스 이름>.* 가 있으면 그 시퀀스만 덮어쓴다.
+   increment_size(block-size), stripes, time_ordered(time-ordered)
+   node-id 는 서버 단위라 app.id.node-id 하나로 모든 시퀀스에 적용한다. (@Parameter node_id 가 기본값)
+*/
+public class StripedSequenceGenerator extends SequenceStyleGenerator {
+
+    public static final String STRIPES_PARAM = "stripes";
+    public static final String TIME_ORDERED_PARAM = "time_ordered";
+    public static final String NODE_ID_PARAM = "node_id";
+
+    private static final String SETTING_PREFIX = "app.id.";
+    private static final long EPOCH = 1577836800000L; // 2020-01-01T00:00:00Z
+    private static final int NODE_BITS = 10;
+    private static final int COUNTER_BITS = 12;
+
+    private int blockSize;
+    private boolean timeOrdered;
+    private long nodeId;
+    private Stripe[] stripes;
+    private final AtomicInteger nextStripe = new AtomicInteger();
+    private final ThreadLocal<Stripe> ownedStripe = ThreadLocal.withInitial(
+            () -> stripes[nextStripe.getAndIncrement() & (stripes.length - 1)]);
+    private final AtomicLong lastTimeOrdered = new AtomicLong();
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) throws MappingException {
+        ConfigurationService settings = serviceRegistry.getService(ConfigurationService.class);
+        String prefix = SETTING_PREFIX + ConfigurationHelper.getString(SEQUENCE_PARAM, parameters, "") + ".";
+        blockSize = settings.getSetting(prefix + "block-size", StandardConverters.INTEGER,
+                ConfigurationHelper.getInt(INCREMENT_PARAM, parameters, DEFAULT_INCREMENT_SIZE));
+        int stripeCount = settings.getSetting(prefix + "stripes", StandardConverters.INTEGER,
+                ConfigurationHelper.getInt(STRIPES_PARAM, parameters, Runtime.getRuntime().availableProcessors()));
+        timeOrdered = settings.getSetting(prefix + "time-ordered", StandardConverters.BOOLEAN,
+                ConfigurationHelper.getBoolean(TIME_ORDERED_PARAM, parameters, false));
+        nodeId = settings.getSetting(SETTING_PREFIX + "node-id", StandardConverters.INTEGER,
+                ConfigurationHelper.getInt(NODE_ID_PARAM, parameters, 0));
+        if (blockSize < 1) {
+            throw new MappingException("block-size 는 1 이상이어야 합니다: " + blockSize);
+        }
+        if (nodeId < 0 || nodeId >= (1 << NODE_BITS)) {
+            throw new MappingException("node-id 는 0 ~ " + ((1 << NODE_BITS) - 1) + " 사이여야 합니다: " + nodeId);
+        }
+
+        stripes = new Stripe[Integer.highestOneBit(Math.max(stripeCount, 1) * 2 - 1)]; // 2의 거듭제곱으로 올림
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+
+        /* DB 시퀀스 생성(ddl), dialect 별 next value sql 은 SequenceStyleGenerator 에 맡긴다. */
+        parameters.setProperty(INCREMENT_PARAM, String.valueOf(blockSize));
+        parameters.setProperty(OptimizableGenerator.OPT_PARAM, StandardOptimizerDescriptor.POOLED_LO.getExternalName());
+        super.configure(type, parameters, serviceRegistry);
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        if (timeOrdered) {
+            return nextTimeOrdered();
+        }
+        return ownedStripe.get().next(session);
+    }
+
+    private long nextBlockStart(SharedSessionContractImplementor session) {
+        return getDatabaseStructure().buildCallback(session).getNextValue().makeValue().longValue();
+    }
+
+    /* 같은 밀리초에 4096 개를 넘으면 다음 밀리초 값을 미리 쓴다. (시계가 뒤로 가도 감소하지 않는다) */
+    private long nextTimeOrdered() {
+        long timestamp = (System.currentTimeMillis() - EPOCH) << (NODE_BITS + COUNTER_BITS);
+        long candidate = timestamp | (nodeId << COUNTER_BITS);
+        while (true) {
+            long last = lastTimeOrdered.get();
+            long next = candidate > last ? candidate : nextAfter(last);
+            if (lastTimeOrdered.compareAndSet(last, next)) {
+                return next;
+            }
+        }
+    }
+
+    private long nextAfter(long last) {
+        long counterMask = (1L << COUNTER_BITS) - 1;
+        if ((last & counterMask) < counterMask) {
+            return last + 1;
+        }
+        long nextMillis = (last >>> (NODE_BITS + COUNTER_BITS)) + 1;
+        return (nextMillis << (NODE_BITS + COUNTER_BITS)) | (nodeId << COUNTER_BITS);
+    }
+
+    /*
+     블록이 떨어지면 lock 을 잡은 채로 시퀀스를 부른다(jdbc).
+     synchronized 면 virtual thread 가 carrier 에 고정(pinning)되므로 ReentrantLock 을 쓴다. (PinnedThreadMonitor)
+    */
+    private final class Stripe {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private long next;
+        private long limit;
+
+        long next(SharedSessionContractImplementor session) {
+            lock.lock();
+            try {
+                if (next == limit) {
+                    next = nextBlockStart(session);
+                    limit = next + blockSize;
+                }
+                return next++;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
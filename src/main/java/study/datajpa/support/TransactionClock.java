@@ -0,0 +1,69 @@
+package study.datajpa.support;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.auditing.DateTimeProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAccessor;
+import java.util.Optional;
+
+/*
+ 엔티티 생성/수정 시각의 시간 소스. (JpaBaseEntity, BaseTimeEntity 의 auditing, ItemRepositoryImpl.upsertAll)
+
+ 트랜잭션 안에서는 처음 읽은 시각을 트랜잭션이 끝날 때까지 돌려준다.
+ 10만 건을 한 번에 flush 해도 시계는 한 번만 읽고, 같은 트랜잭션에서 쓴 행은 시각이 모두 같다.
+ 트랜잭션 밖에서는 부를 때마다 시계를 읽는다.
+
+ app.clock.precision : 이 단위 아래는 버린다. (DB 컬럼 정밀도에 맞추면 저장 전/후 값이 같다. H2 timestamp = MICROS)
+ app.clock.per-transaction=false 면 항상 시계를 읽는다. (벤치마크 비교용)
+ 시계는 Clock 빈이 있으면 그걸 쓰므로 테스트에서 고정 시각을 넣을 수 있다.
+*/
+@Component
+public class TransactionClock implements DateTimeProvider {
+
+    private final Clock clock;
+    private final ChronoUnit precision;
+    private final boolean perTransaction;
+
+    public TransactionClock(Optional<Clock> clock,
+                            @Value("${app.clock.precision:MICROS}") ChronoUnit precision,
+                            @Value("${app.clock.per-transaction:true}") boolean perTransaction) {
+        this.clock = clock.orElseGet(Clock::systemDefaultZone);
+        this.precision = precision;
+        this.perTransaction = perTransaction;
+    }
+
+    public LocalDateTime now() {
+        if (!perTransaction || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return read();
+        }
+
+        LocalDateTime now = (LocalDateTime) TransactionSynchronizationManager.getResource(this);
+        if (now == null) {
+            now = read();
+            TransactionSynchronizationManager.bindResource(this, now);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(TransactionClock.this);
+                }
+            });
+        }
+        return now;
+    }
+
+    private LocalDateTime read() {
+        return LocalDateTime.now(clock).truncatedTo(precision);
+    }
+
+    /* AuditingEntityListener(@CreatedDate, @LastModifiedDate) 가 부른다. (@EnableJpaAuditing dateTimeProviderRef) */
+    @Override
+    public Optional<TemporalAccessor> getNow() {
+        return Optional.of(now());
+    }
+}
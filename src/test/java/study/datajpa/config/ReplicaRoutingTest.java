@@ -0,0 +1,135 @@
+package study.datajpa.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.support.ReplicaRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+ replica 프로파일 : replica-0, replica-1 은 같은 H2 를 보는 별도 커넥션 풀이다.
+ 트랜잭션 안에서 어느 풀의 커넥션이 사용 중인지로 라우팅을 확인한다.
+*/
+@SpringBootTest
+@ActiveProfiles("replica")
+class ReplicaRoutingTest {
+
+    @Autowired
+    ReplicaRoutingDataSource routingDataSource;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    MemberRepository memberRepository;
+
+    @BeforeEach
+    void setUp() {
+        routingDataSource.probe();
+    }
+
+    @Test
+    public void readOnlyTransactionGoesToReplica() throws Exception {
+        // given
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        List<String> used = new ArrayList<>();
+
+        // when
+        for (int i = 0; i < 2; i++) {
+            readOnly.executeWithoutResult(status -> {
+                memberRepository.findByUsername("replica");
+                used.add(activePool());
+            });
+        }
+
+        // then : round robin
+        assertThat(used).containsExactlyInAnyOrder("replica-0", "replica-1");
+    }
+
+    @Test
+    public void writeTransactionGoesToPrimary() throws Exception {
+        // given
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+
+        // when
+        String used = readWrite.execute(status -> {
+            memberRepository.save(new Member("replicaWrite", 710));
+            memberRepository.flush();
+            String pool = activePool();
+            status.setRollbackOnly();
+            return pool;
+        });
+
+        // then
+        assertThat(used).isEqualTo(ReplicaRoutingDataSource.PRIMARY);
+    }
+
+    @Test
+    public void fallbackToPrimaryWhenReplicaIsDown() throws Exception {
+        // given
+        DataSource primary = new DriverManagerDataSource("jdbc:h2:mem:fallback_primary;DB_CLOSE_DELAY=-1");
+        DataSource down = new DriverManagerDataSource("jdbc:h2:tcp://localhost:1/none");
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, Map.of("down", down),
+                ReplicaRoutingDataSource.Selection.ROUND_ROBIN, Duration.ofSeconds(5), null);
+
+        // when
+        routing.probe();
+
+        // then
+        assertThat(routing.isHealthy("down")).isFalse();
+        assertThat(readOnlyConnectionUrl(routing)).contains("fallback_primary");
+    }
+
+    @Test
+    public void fallbackToPrimaryWhenReplicaLags() throws Exception {
+        // given
+        DataSource primary = new DriverManagerDataSource("jdbc:h2:mem:lag_primary;DB_CLOSE_DELAY=-1");
+        DataSource lagging = new DriverManagerDataSource("jdbc:h2:mem:lag_replica;DB_CLOSE_DELAY=-1");
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, Map.of("lagging", lagging),
+                ReplicaRoutingDataSource.Selection.LEAST_LATENCY, Duration.ofSeconds(5), "select 10");
+
+        // when
+        routing.probe();
+
+        // then
+        assertThat(routing.isHealthy("lagging")).isFalse();
+        assertThat(readOnlyConnectionUrl(routing)).contains("lag_primary");
+    }
+
+    private String activePool() {
+        return routingDataSource.getResolvedDataSources().entrySet().stream()
+                .filter(entry -> {
+                    HikariPoolMXBean pool = ((HikariDataSource) entry.getValue()).getHikariPoolMXBean();
+                    return pool != null && pool.getActiveConnections() > 0;
+                })
+                .map(entry -> (String) entry.getKey())
+                .findFirst()
+                .orElse(null);
+    }
+
+    private String readOnlyConnectionUrl(DataSource dataSource) throws Exception {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.getMetaData().getURL();
+        } finally {
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package study.datajpa.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+ READ_WRITE 캐시는 commit 이후에야 캐시에 들어가므로 테스트 전체를 하나의 트랜잭션으로 묶지 않는다.
+ repository 호출마다 트랜잭션(= 영속성 컨텍스트)이 새로 열리니 두번째 조회는 2차 캐시에서 나온다.
+*/
+@SpringBootTest
+@ActiveProfiles("cache")
+class SecondLevelCacheTest {
+
+    @Autowired
+    EntityManagerFactory emf;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+
+    Statistics statistics;
+    List<Member> members = new ArrayList<>();
+    List<Team> teams = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    /* 커밋된 데이터라 직접 지운다. (벌크 delete 는 해당 region 을 비운다) */
+    @AfterEach
+    void tearDown() {
+        memberRepository.deleteAllInBatch(members);
+        teamRepository.deleteAllInBatch(teams);
+    }
+
+    @Test
+    public void entityCache() throws Exception {
+        // given
+        Team team = teamRepository.save(new Team("cacheTeam"));
+        Member member = memberRepository.save(new Member("cacheMember", 10, team));
+        teams.add(team);
+        members.add(member);
+
+        // when
+        memberRepository.findById(member.getId()).get();
+        memberRepository.findById(member.getId()).get(); // 영속성 컨텍스트가 달라도 2차 캐시에서 가져온다.
+
+        // then
+        assertThat(statistics.getDomainDataRegionStatistics("member").getHitCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void queryCache() throws Exception {
+        // given
+        members.add(memberRepository.save(new Member("queryCacheMember", 10)));
+
+        // when
+        memberRepository.findByUsername("queryCacheMember");
+        memberRepository.findByUsername("queryCacheMember");
+
+        // then
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,161 @@
+package study.datajpa.controller;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+ 동시 접속 수를 늘려가면서 MemberController 를 두드려서 커넥션 풀(20) 과 요청 스레드(200) 중 어디서 먼저 막히는지 본다.
+    ./gradlew loadTest -Pload.clients=8,32,128,512 -Pload.duration=5s
+ 처리량이 더 이상 늘지 않는데 hikaricp pending 과 acquire p99 가 커지면 풀이 병목,
+ pending 은 0 인데 tomcat busy 가 max 에 붙어 있으면 요청 스레드가 병목이다.
+*/
+@Tag("load")
+@ActiveProfiles("prod")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class MemberControllerLoadTest {
+
+    @LocalServerPort
+    int port;
+    @Autowired
+    MeterRegistry meterRegistry;
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Test
+    public void saturation() throws Exception {
+        // given
+        int[] levels = Arrays.stream(System.getProperty("load.clients", "8,32,128,512").split(","))
+                .mapToInt(level -> Integer.parseInt(level.trim()))
+                .toArray();
+        Duration duration = DurationStyle.detectAndParse(System.getProperty("load.duration", "5s"));
+        List<Long> ids = memberRepository.findAll().stream().map(Member::getId).toList();
+        HttpClient client = HttpClient.newBuilder().executor(Executors.newFixedThreadPool(32)).build();
+
+        // when
+        List<Result> results = new ArrayList<>();
+        for (int clients : levels) {
+            results.add(run(client, ids, clients, duration));
+        }
+
+        // then
+        System.out.println("clients |    req/s |  p50 ms |  p99 ms | errors | pool pending(max) | acquire p99 ms | tomcat busy(max)");
+        Result saturation = null;
+        Result previous = null;
+        for (Result result : results) {
+            System.out.printf("%7d | %8.0f | %7.2f | %7.2f | %6d | %17d | %14.2f | %16d%n",
+                    result.clients, result.throughput, result.p50, result.p99, result.errors,
+                    result.maxPending, result.acquireP99, result.maxBusy);
+            /* 동시 접속을 늘렸는데 처리량이 10% 도 안 늘면 포화 */
+            if (saturation == null && previous != null && result.throughput < previous.throughput * 1.1) {
+                saturation = previous;
+            }
+            previous = result;
+        }
+        System.out.println(saturation == null
+                ? "포화 지점에 도달하지 않음 -> -Pload.clients 를 더 크게"
+                : "포화 지점 : 약 " + saturation.clients + " clients (" + Math.round(saturation.throughput) + " req/s)");
+
+        assertThat(results).allSatisfy(result -> assertThat(result.requests).isPositive());
+    }
+
+    private Result run(HttpClient client, List<Long> ids, int clients, Duration duration) throws Exception {
+        Timer acquire = meterRegistry.find("hikaricp.connections.acquire").timer();
+        Gauge pending = meterRegistry.find("hikaricp.connections.pending").gauge();
+        Gauge busy = meterRegistry.find("tomcat.threads.busy").gauge();
+
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        AtomicLong errors = new AtomicLong();
+        AtomicLong maxPending = new AtomicLong();
+        AtomicLong maxBusy = new AtomicLong();
+        long deadline = System.nanoTime() + duration.toNanos();
+
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> {
+            if (pending != null) {
+                maxPending.accumulateAndGet((long) pending.value(), Math::max);
+            }
+            if (busy != null) {
+                maxBusy.accumulateAndGet((long) busy.value(), Math::max);
+            }
+        }, 0, 10, TimeUnit.MILLISECONDS);
+
+        ExecutorService workers = Executors.newFixedThreadPool(clients);
+        for (int c = 0; c < clients; c++) {
+            workers.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request(ids, random), HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+                    latencies.add(System.nanoTime() - start);
+                }
+                return null;
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(duration.toMillis() + 60_000, TimeUnit.MILLISECONDS);
+        sampler.shutdownNow();
+
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        double acquireP99 = acquire == null ? 0 : percentile(acquire, 0.99);
+        return new Result(clients, sorted.length, sorted.length / (double) duration.toSeconds(),
+                percentile(sorted, 0.5), percentile(sorted, 0.99), errors.get(),
+                maxPending.get(), acquireP99, maxBusy.get());
+    }
+
+    /* 단건 조회 80%, 페이지 조회 20% */
+    private HttpRequest request(List<Long> ids, ThreadLocalRandom random) {
+        String path = random.nextInt(10) < 8
+                ? "/members/" + ids.get(random.nextInt(ids.size()))
+                : "/members2?page=" + random.nextInt(10) + "&size=10&count=CACHED";
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET().build();
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)] / 1_000_000.0;
+    }
+
+    private static double percentile(Timer timer, double percentile) {
+        return Arrays.stream(timer.takeSnapshot().percentileValues())
+                .filter(value -> value.percentile() == percentile)
+                .mapToDouble(value -> value.value(TimeUnit.MILLISECONDS))
+                .findFirst()
+                .orElse(0);
+    }
+
+    private record Result(int clients, long requests, double throughput, double p50, double p99, long errors,
+                          long maxPending, double acquireP99, long maxBusy) {
+    }
+}
@@ -0,0 +1,108 @@
+package study.datajpa.controller;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.datajpa.DataJpaApplication;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+ 같은 요청 10k 개를 한꺼번에 보내서 platform thread(tomcat 200 스레드) 와 virtual thread 를 비교한다.
+    ./gradlew loadTest -PvirtualThreads -Pload.requests=10000
+ Java 21 미만이면 platform 만 측정한다.
+ 프로파일이 다르니 @SpringBootTest 대신 컨텍스트를 직접 띄우고, 모드마다 다른 H2 를 쓴다.
+*/
+@Tag("load")
+class VirtualThreadLoadTest {
+
+    @Test
+    public void platformVersusVirtual() throws Exception {
+        // given
+        int requests = Integer.getInteger("load.requests", 10_000);
+
+        // when
+        List<Result> results = new ArrayList<>();
+        results.add(run("platform", requests, "prod"));
+        if (Runtime.version().feature() >= 21) {
+            results.add(run("virtual", requests, "prod,virtual"));
+        } else {
+            System.out.println("Java " + Runtime.version().feature() + " : virtual 모드는 건너뜀 (-PvirtualThreads)");
+        }
+
+        // then
+        System.out.println("mode     | requests |    req/s | total ms | errors | peak threads | peak heap MB");
+        for (Result result : results) {
+            System.out.printf("%-8s | %8d | %8.0f | %8d | %6d | %12d | %12d%n",
+                    result.mode, result.requests, result.requests * 1000.0 / result.elapsedMillis,
+                    result.elapsedMillis, result.errors, result.peakThreads, result.peakHeapBytes / (1024 * 1024));
+        }
+        assertThat(results).allSatisfy(result -> assertThat(result.errors).isLessThan(result.requests));
+    }
+
+    private Result run(String mode, int requests, String profiles) throws Exception {
+        SpringApplication application = new SpringApplication(DataJpaApplication.class);
+        ExecutorService clientExecutor = Executors.newFixedThreadPool(16);
+        try (ConfigurableApplicationContext context = application.run(
+                "--server.port=0",
+                "--spring.profiles.active=" + profiles,
+                "--spring.datasource.url=jdbc:h2:mem:load_" + mode + ";DB_CLOSE_DELAY=-1",
+                "--logging.level.root=warn")) {
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            List<Long> ids = context.getBean(MemberRepository.class).findAll().stream().map(Member::getId).toList();
+            HttpClient client = HttpClient.newBuilder().executor(clientExecutor).build();
+
+            System.gc();
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            threads.resetPeakThreadCount();
+            List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                    .filter(pool -> pool.getType() == MemoryType.HEAP)
+                    .toList();
+            heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+            AtomicLong errors = new AtomicLong();
+            long start = System.nanoTime();
+            CompletableFuture<?>[] responses = new CompletableFuture<?>[requests];
+            for (int i = 0; i < requests; i++) {
+                Long id = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+                HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/members/" + id)).GET().build();
+                responses[i] = client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                        .handle((response, ex) -> {
+                            if (ex != null || response.statusCode() != 200) {
+                                errors.incrementAndGet();
+                            }
+                            return null;
+                        });
+            }
+            CompletableFuture.allOf(responses).join();
+            long elapsedMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+
+            long peakHeap = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+            return new Result(mode, requests, elapsedMillis, errors.get(), threads.getPeakThreadCount(), peakHeap);
+        } finally {
+            clientExecutor.shutdownNow();
+        }
+    }
+
+    private record Result(String mode, int requests, long elapsedMillis, long errors, int peakThreads, long peakHeapBytes) {
+    }
+}
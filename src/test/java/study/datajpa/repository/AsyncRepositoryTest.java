@@ -0,0 +1,115 @@
+package study.datajpa.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.jpa.SpecHints;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.datajpa.config.RepositoryExecutorProperties;
+import study.datajpa.entity.Item;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.support.QueryTimeoutInterceptor;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+ 비동기 조회는 다른 스레드(다른 트랜잭션)에서 실행되므로 테스트 트랜잭션으로 묶으면 데이터가 안 보인다.
+ 커밋해서 넣고 끝나면 지운다.
+*/
+@SpringBootTest
+class AsyncRepositoryTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    ItemRepository itemRepository;
+    @Autowired
+    MeterRegistry meterRegistry;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+    @Autowired
+    ObjectProvider<EntityManagerFactory> entityManagerFactoryProvider;
+    @Autowired
+    RepositoryExecutorProperties repositoryExecutorProperties;
+
+    Member member;
+    Team team;
+    Item item;
+
+    @AfterEach
+    void tearDown() {
+        if (member != null) {
+            memberRepository.delete(member);
+        }
+        if (team != null) {
+            teamRepository.delete(team);
+        }
+        if (item != null) {
+            itemRepository.delete(item);
+        }
+    }
+
+    @Test
+    public void fanOut() throws Exception {
+        // given
+        team = teamRepository.save(new Team("asyncTeam"));
+        member = memberRepository.save(new Member("asyncMember", 711, team));
+        item = itemRepository.save(new Item("asyncItem"));
+
+        // when
+        CompletableFuture<Member> findMember = memberRepository.findAsyncById(member.getId());
+        CompletableFuture<Team> findTeam = teamRepository.findAsyncByName("asyncTeam");
+        CompletableFuture<Item> findItem = itemRepository.findAsyncById("asyncItem");
+        CompletableFuture<List<Member>> findMembers = memberRepository.findAsyncByUsername("asyncMember");
+        CompletableFuture.allOf(findMember, findTeam, findItem, findMembers).get(5, TimeUnit.SECONDS);
+
+        // then
+        assertThat(findMember.join().getTeam().getName()).isEqualTo("asyncTeam"); // entity graph 로 같이 읽어서 지연 로딩 없음
+        assertThat(findTeam.join().getId()).isEqualTo(team.getId());
+        assertThat(findItem.join().getId()).isEqualTo("asyncItem");
+        assertThat(findMembers.join()).extracting("username").containsExactly("asyncMember");
+        assertThat(meterRegistry.get("executor.queued").tag("name", "repositoryExecutor").gauge()).isNotNull();
+    }
+
+    @Test
+    public void notFound() throws Exception {
+        // when
+        Team findTeam = teamRepository.findAsyncByName("noSuchTeam").get(5, TimeUnit.SECONDS);
+
+        // then
+        assertThat(findTeam).isNull();
+    }
+
+    @Test
+    public void queryTimeoutFromProperty() throws Exception {
+        // given : 트랜잭션 밖에서 쿼리를 만드는 EntityManager 에 걸린 query timeout 을 본다.
+        Supplier<Object> target = () -> EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory)
+                .getProperties().get(SpecHints.HINT_SPEC_QUERY_TIMEOUT);
+        ProxyFactory proxyFactory = new ProxyFactory(target);
+        proxyFactory.addAdvice(new QueryTimeoutInterceptor(method -> true,
+                repositoryExecutorProperties::getTimeout, entityManagerFactoryProvider));
+        @SuppressWarnings("unchecked")
+        Supplier<Object> proxy = (Supplier<Object>) proxyFactory.getProxy();
+
+        // when
+        Object timeout = proxy.get();
+
+        // then : app.repository-executor.timeout (ms), 호출이 끝나면 EntityManager 를 풀어준다.
+        assertThat(timeout).isEqualTo(Math.toIntExact(repositoryExecutorProperties.getTimeout().toMillis()));
+        assertThat(TransactionSynchronizationManager.hasResource(entityManagerFactory)).isFalse();
+    }
+}
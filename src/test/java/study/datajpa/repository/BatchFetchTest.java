@@ -0,0 +1,87 @@
+package study.datajpa.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+ fetch join 을 쓸 수 없는 경우(페이징)에도 지연 로딩이 N 번이 아니라 batch 로 나가는지 쿼리 수로 확인한다.
+*/
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+class BatchFetchTest {
+
+    static final int AGE = 999;
+
+    @PersistenceContext
+    EntityManager em;
+    @Autowired
+    EntityManagerFactory emf;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+
+    Statistics statistics;
+    List<Team> teams = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 100; i++) {
+            Team team = new Team("batchTeam" + i);
+            em.persist(team);
+            teams.add(team);
+        }
+        for (int i = 0; i < 1000; i++) {
+            em.persist(new Member("batchMember" + i, AGE, teams.get(i % 100)));
+        }
+        em.flush();
+        em.clear();
+
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void pagingMembersWithTeams() throws Exception {
+        // when
+        Slice<Member> slice = memberRepository.findAllByAge(AGE, PageRequest.of(0, 1000));
+        for (Member member : slice) {
+            member.getTeam().getName();
+        }
+
+        // then : member 페이지 1번 + team 100개를 in 쿼리 1번
+        assertThat(slice.getNumberOfElements()).isEqualTo(1000);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void iteratingTeamMembers() throws Exception {
+        // when
+        List<Team> result = teamRepository.findAllById(teams.stream().map(Team::getId).toList());
+        int memberCount = 0;
+        for (Team team : result) {
+            memberCount += team.getMembers().size();
+        }
+
+        // then : team 조회 1번 + members 를 subselect 로 1번
+        assertThat(memberCount).isEqualTo(1000);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+}
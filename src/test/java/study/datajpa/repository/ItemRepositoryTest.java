@@ -1,17 +1,74 @@
 package study.datajpa.repository;
 
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
 import study.datajpa.entity.Item;
 
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
 class ItemRepositoryTest {
 
+    /* 테스트 스레드에서 jdbc 로 실제 실행된 sql (executeBatch 는 batch 하나에 한 번) */
+    static class ExecutedStatements extends SimpleJdbcEventListener {
+
+        private final List<String> executed = new CopyOnWriteArrayList<>();
+        private volatile Thread recording;
+
+        @Override
+        public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+            if (Thread.currentThread() == recording) {
+                executed.add(statementInformation.getSql());
+            }
+        }
+
+        void start() {
+            executed.clear();
+            recording = Thread.currentThread();
+        }
+
+        List<String> stop() {
+            recording = null;
+            return List.copyOf(executed);
+        }
+    }
+
+    @TestConfiguration
+    static class ExecutedStatementsConfig {
+
+        @Bean
+        ExecutedStatements executedStatements() {
+            return new ExecutedStatements();
+        }
+    }
+
     @Autowired
     ItemRepository itemRepository;
+    @Autowired
+    ExecutedStatements executedStatements;
+
+    private final List<String> savedIds = new ArrayList<>();
+
+    /* 공유하는 tcp H2 에 row 가 남지 않도록 실패해도 지운다 */
+    @AfterEach
+    void cleanUp() {
+        if (!savedIds.isEmpty()) {
+            itemRepository.deleteAllByIdInBatch(savedIds);
+        }
+    }
 
     @Test
     public void save() throws Exception {
@@ -31,4 +88,30 @@ class ItemRepositoryTest {
 
         // then
     }
-}
\ No newline at end of file
+
+    @Test
+    public void upsertAll() throws Exception {
+        // given
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            items.add(new Item("upsert" + i));
+            savedIds.add("upsert" + i);
+        }
+        itemRepository.save(new Item("upsert0"));
+        LocalDateTime createdBy = itemRepository.findById("upsert0").get().getCreatedBy();
+
+        // when : upsert0 은 이미 있다.
+        executedStatements.start();
+        int inserted = itemRepository.upsertAll(items, 100);
+        List<String> executed = executedStatements.stop();
+
+        // then : select 없이 insert-if-absent 문이 jdbc batch 100개씩 3번 (100, 100, 50)
+        assertThat(executed)
+                .hasSize(3)
+                .allSatisfy(sql -> assertThat(sql).startsWithIgnoringCase("merge into item"));
+        assertThat(inserted).isEqualTo(249);
+        assertThat(items).noneMatch(Item::isNew);
+        assertThat(itemRepository.findById("upsert0").get().getCreatedBy()).isEqualTo(createdBy); // 기존 row 는 그대로
+        assertThat(itemRepository.findAllById(savedIds)).hasSize(250);
+    }
+}
@@ -112,6 +112,26 @@ class MemberJpaRepositoryTest {
 
     }
 
+    @Test
+    @Rollback
+    public void keysetPaging() throws Exception {
+        // given
+        memberJpaRepository.save(new Member("member1", 701));
+        memberJpaRepository.save(new Member("member2", 701));
+        memberJpaRepository.save(new Member("member3", 701));
+        memberJpaRepository.save(new Member("member4", 701));
+        memberJpaRepository.save(new Member("member5", 701));
+
+        // when
+        List<Member> first = memberJpaRepository.findByKeyset(701, null, null, 3);
+        Member last = first.get(first.size() - 1);
+        List<Member> second = memberJpaRepository.findByKeyset(701, last.getUsername(), last.getId(), 3);
+
+        // then
+        assertThat(first).extracting("username").containsExactly("member5", "member4", "member3");
+        assertThat(second).extracting("username").containsExactly("member2", "member1");
+    }
+
     @Test
     public void bulkUpdate() throws Exception {
         // given
@@ -1,8 +1,10 @@
 package study.datajpa.repository;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import org.assertj.core.api.Assertions;
+import org.hibernate.Session;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -14,8 +16,11 @@ import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
 import study.datajpa.entity.Team;
 
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -31,6 +36,8 @@ class MemberRepositoryTest {
     TeamRepository teamRepository;
     @PersistenceContext
     EntityManager em;
+    @Autowired
+    MeterRegistry meterRegistry;
 
     /* 내가 커스텀하게 만들기 위해 만든 것! */
     @Autowired
@@ -295,6 +302,28 @@ class MemberRepositoryTest {
         */
     }
 
+    @Test
+    @Rollback
+    public void keysetPaging() throws Exception {
+        // given
+        memberRepository.save(new Member("member1", 700));
+        memberRepository.save(new Member("member2", 700));
+        memberRepository.save(new Member("member3", 700));
+        memberRepository.save(new Member("member4", 700));
+        memberRepository.save(new Member("member5", 700));
+
+        // when
+        Window<Member> first = memberRepository.scrollByAge(700, ScrollPosition.keyset(), 3);
+        Window<Member> second = memberRepository.scrollByAge(700, first.positionAt(first.size() - 1), 3);
+        /* offset 없이 where (username, id) > (마지막 값) 으로 다음 페이지를 가져온다. */
+
+        // then
+        assertThat(first.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
+        assertThat(first.hasNext()).isTrue();
+        assertThat(second.getContent()).extracting("username").containsExactly("member4", "member5");
+        assertThat(second.hasNext()).isFalse();
+    }
+
     @Test
     public void top3() throws Exception {
         // given
@@ -337,6 +366,120 @@ class MemberRepositoryTest {
         assertThat(resultCount).isEqualTo(3);
     }
 
+    @Test
+    @Rollback
+    public void saveAllBatched() throws Exception {
+        // given
+        Team team = new Team("batchTeam");
+        em.persist(team);
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            members.add(new Member("batch" + i, 702, team));
+        }
+
+        // when
+        int saved = memberRepository.saveAllBatched(members, 100);
+        /* insert 100개씩 jdbc batch 로 나가고, 저장한 Member 만 영속성 컨텍스트에서 내보낸다. */
+
+        // then
+        assertThat(saved).isEqualTo(250);
+        assertThat(members).allMatch(member -> member.getId() != null);
+        assertThat(em.contains(members.get(0))).isFalse();
+        assertThat(em.contains(team)).isTrue(); // 호출한 쪽의 엔티티는 그대로 영속 상태
+        assertThat(memberRepository.findAll(MemberSpec.age(702))).hasSize(250);
+    }
+
+    @Test
+    @Rollback
+    public void streamMemberDto() throws Exception {
+        // given
+        Team teamA = new Team("teamA");
+        teamRepository.save(teamA);
+        for (int i = 0; i < 25; i++) {
+            memberRepository.save(new Member("stream" + i, 703, teamA));
+        }
+        em.flush();
+        em.clear();
+
+        // when
+        List<MemberDto> result;
+        try (Stream<MemberDto> stream = memberRepository.streamMemberDto(10)) {
+            result = stream.filter(dto -> dto.getUsername().startsWith("stream")).toList();
+        }
+        /* fetchSize(10) 만큼 읽을 때마다 영속성 컨텍스트를 비우면서 끝까지 읽는다. */
+
+        // then
+        assertThat(result).hasSize(25);
+        assertThat(result).allMatch(dto -> "teamA".equals(dto.getTeamName()));
+    }
+
+    @Test
+    @Rollback
+    public void bulkUpdateInContext() throws Exception {
+        // given
+        Member member1 = memberRepository.save(new Member("member1", 10));
+        Member member2 = memberRepository.save(new Member("member2", 704));
+        Member member3 = memberRepository.save(new Member("member3", 705));
+
+        // when
+        int resultCount = memberRepository.bulkAgePlusInContext(704);
+
+        // then
+        assertThat(resultCount).isEqualTo(2);
+        /* clear 하지 않았는데도 1차 캐시의 엔티티가 바뀐 값을 가지고 있다. */
+        assertThat(em.contains(member2)).isTrue();
+        assertThat(member1.getAge()).isEqualTo(10);
+        assertThat(member2.getAge()).isEqualTo(705);
+        assertThat(member3.getAge()).isEqualTo(706);
+        /* 스냅샷도 갱신되어 변경감지로 update 가 또 나가지 않는다. */
+        assertThat(em.unwrap(Session.class).isDirty()).isFalse();
+
+        em.clear();
+        assertThat(memberRepository.findById(member3.getId()).get().getAge()).isEqualTo(706);
+    }
+
+    @Test
+    @Rollback
+    public void readOnlyQuery() throws Exception {
+        // given
+        memberRepository.save(new Member("readOnly1", 708));
+        em.flush();
+        em.clear();
+
+        // when : 쓰기 트랜잭션(테스트 트랜잭션) 안에서 @ReadOnlyQuery 메서드 호출
+        Member findMember = memberRepository.findByNames(List.of("readOnly1")).get(0);
+        findMember.setAge(709);
+        em.flush();
+
+        // then
+        /* 쓰기 트랜잭션 안이어도 이 호출에서 읽은 엔티티는 readOnly -> 스냅샷이 없고 update 가 안 나간다 */
+        Session session = em.unwrap(Session.class);
+        assertThat(session.isReadOnly(findMember)).isTrue();
+        assertThat(session.isDefaultReadOnly()).isFalse(); // 호출이 끝나면 원래대로
+        em.clear();
+        assertThat(memberRepository.findById(findMember.getId()).get().getAge()).isEqualTo(708);
+    }
+
+    @Test
+    @Rollback
+    public void findMemberFetchJoinStateless() throws Exception {
+        // given
+        Team team = teamRepository.save(new Team("statelessTeam"));
+        memberRepository.save(new Member("stateless1", 708, team));
+        em.flush();
+        em.clear();
+
+        // when
+        List<Member> result = memberRepository.findMemberFetchJoinStateless();
+
+        // then
+        Member findMember = result.stream()
+                .filter(member -> member.getUsername().equals("stateless1"))
+                .findFirst().orElseThrow();
+        assertThat(em.contains(findMember)).isFalse();
+        assertThat(findMember.getTeam().getName()).isEqualTo("statelessTeam");
+    }
+
     @Test
     public void findMemberLazy() throws Exception {
         // given
@@ -558,6 +701,34 @@ class MemberRepositoryTest {
         // then
     }
 
+    @Test
+    public void specPlanCache() throws Exception {
+        // given
+        Team team = new Team("specTeam");
+        em.persist(team);
+        em.persist(new Member("specM1", 0, team));
+        em.persist(new Member("specM2", 0, team));
+        em.persist(new Member(null, 0, team));
+        em.flush();
+        em.clear();
+        double hits = meterRegistry.counter("member.query.plans", "source", "specification", "result", "hit").count();
+
+        // when : 값만 다르고 모양이 같은 조건
+        List<Member> m1 = memberRepository.findAll(MemberSpec.username("specM1").and(MemberSpec.teamName("specTeam")));
+        List<Member> m2 = memberRepository.findAll(MemberSpec.username("specM2").and(MemberSpec.teamName("specTeam")));
+        List<Member> all = memberRepository.findAll(MemberSpec.username("specM2").or(MemberSpec.username("specM1")));
+        List<Member> nullName = memberRepository.findAll(MemberSpec.username(null).and(MemberSpec.teamName("specTeam")));
+
+        // then
+        assertThat(m1).extracting("username").containsExactly("specM1");
+        assertThat(m2).extracting("username").containsExactly("specM2");
+        assertThat(all).hasSize(2); // or 는 criteria 로 실행
+        assertThat(nullName).isEmpty(); // null 은 "= null" 바인딩 (is null 이 아니다)
+        assertThat(meterRegistry.counter("member.query.plans", "source", "specification", "result", "hit").count()).isGreaterThanOrEqualTo(hits + 1);
+        assertThat(((MemberSpec.Shaped) MemberSpec.username("specM1").and(MemberSpec.teamName("specTeam"))).shape())
+                .isEqualTo("m.username = ? and t.name = ?");
+    }
+
     /* Query by Example */
 
     /* 도메인 객체를 가지고 그냥 검색조건을 가지고 만든다! */
@@ -604,6 +775,63 @@ class MemberRepositoryTest {
         assertThat(members.get(0).getUsername()).isEqualTo("m1");
     }
 
+    @Test
+    public void examplesSparseProbe() throws Exception {
+        // given
+        Team team = new Team("qbeTeam");
+        em.persist(team);
+        em.persist(new Member("qbeM1", 0, team));
+        em.persist(new Member("qbeM2", 0));
+        em.flush();
+        em.clear();
+        ExampleMatcher matcher = ExampleMatcher.matching().withIgnorePaths("age");
+        double hits = meterRegistry.counter("member.query.plans", "source", "example", "result", "hit").count();
+
+        // when
+        Member teamProbe = new Member("qbeM1");
+        teamProbe.setTeam(new Team("qbeTeam"));
+        Member otherTeamProbe = new Member("qbeM1");
+        otherTeamProbe.setTeam(new Team("noSuchTeam"));
+        Member emptyTeamProbe = new Member("qbeM2");
+        emptyTeamProbe.setTeam(new Team(null));
+
+        List<Member> withTeam = memberRepository.findAll(Example.of(teamProbe, matcher));
+        List<Member> otherTeam = memberRepository.findAll(Example.of(otherTeamProbe, matcher));
+        List<Member> emptyTeam = memberRepository.findAll(Example.of(emptyTeamProbe, matcher));
+        List<Member> ignoreCase = memberRepository.findAll(Example.of(new Member("QBEM2"), matcher.withIgnoreCase("username")));
+
+        // then
+        assertThat(withTeam).extracting("username").containsExactly("qbeM1");
+        assertThat(otherTeam).isEmpty();
+        assertThat(emptyTeam).extracting("username").containsExactly("qbeM2"); // 빈 team probe 는 join 하지 않는다. (team 이 없는 회원도 나온다)
+        assertThat(ignoreCase).extracting("username").containsExactly("qbeM2");
+        assertThat(meterRegistry.counter("member.query.plans", "source", "example", "result", "hit").count()).isGreaterThanOrEqualTo(hits + 1);
+    }
+
+
+    @Test
+    public void examplesContainingEscapesWildcards() throws Exception {
+        // given : _ 와 % 는 like 에서 와일드카드. 그대로 넘기면 qbeA50Bx 도 걸린다.
+        Team team = new Team("qbeLike!Team");
+        em.persist(team);
+        em.persist(new Member("qbe_50%x", 0, team));
+        em.persist(new Member("qbeA50Bx", 0, team));
+        em.persist(new Member("qbe_50%y", 0));
+        em.flush();
+        em.clear();
+        ExampleMatcher matcher = ExampleMatcher.matching()
+                .withIgnorePaths("age")
+                .withStringMatcher(ExampleMatcher.StringMatcher.CONTAINING)
+                .withIgnoreCase();
+
+        // when : username, team.name 두 문자열 모두 contains (escape 문자 ! 가 값에 들어 있어도)
+        Member probe = new Member("_50%");
+        probe.setTeam(new Team("LIKE!T"));
+        List<Member> result = memberRepository.findAll(Example.of(probe, matcher));
+
+        // then
+        assertThat(result).extracting("username").containsExactly("qbe_50%x");
+    }
 
     /* projection */
     @Test
@@ -712,4 +940,47 @@ class MemberRepositoryTest {
             - 실무에서는 단순할 때만 사용하고, 조금만 복잡해지면 QueryDSL을 사용하자
         * */
     }
-}
\ No newline at end of file
+
+    record MemberTeamView(String username, String teamName) {
+    }
+
+    interface UsernameAge {
+        String getUsername();
+
+        int getAge();
+
+        default String label() {
+            return getUsername() + ":" + getAge();
+        }
+    }
+
+    /* MemberProjections : 엔티티 없이 필요한 컬럼만 select */
+    @Test
+    public void tupleProjections() throws Exception {
+        //given
+        Team team = new Team("tupleTeam");
+        em.persist(team);
+        em.persist(new Member("tupleM1", 7, team));
+        em.persist(new Member("tupleM2", 0));
+        em.flush();
+        em.clear();
+
+        // when
+        List<UsernameOnlyDto> dtos = memberRepository.findTupleProjectionByUsername("tupleM1", UsernameOnlyDto.class);
+        List<MemberTeamView> views = memberRepository.findTupleProjectionByUsername("tupleM1", MemberTeamView.class);
+        List<NestedClosedProjections> nested = memberRepository.findTupleProjectionByUsername("tupleM1", NestedClosedProjections.class);
+        List<NestedClosedProjections> noTeam = memberRepository.findTupleProjectionByUsername("tupleM2", NestedClosedProjections.class);
+        List<UsernameAge> ages = memberRepository.findTupleProjectionByUsername("tupleM1", UsernameAge.class);
+
+        // then
+        assertThat(dtos).extracting("username").containsExactly("tupleM1");
+        assertThat(views).containsExactly(new MemberTeamView("tupleM1", "tupleTeam"));
+        assertThat(nested.get(0).getUsername()).isEqualTo("tupleM1");
+        assertThat(nested.get(0).getTeam().getName()).isEqualTo("tupleTeam");
+        assertThat(noTeam.get(0).getTeam()).isNull(); // left join, team 이 없으면 중첩 프로젝션도 null
+        assertThat(Proxy.isProxyClass(nested.get(0).getClass())).isFalse(); // 만들어둔 구현 클래스 (jdk proxy 아님)
+        assertThat(ages.get(0).getAge()).isEqualTo(7); // primitive getter
+        assertThat(ages.get(0).label()).isEqualTo("tupleM1:7"); // default 메서드는 그대로
+        assertThat(em.unwrap(Session.class).getStatistics().getEntityCount()).isZero(); // 엔티티를 하나도 읽지 않았다.
+    }
+}
@@ -0,0 +1,93 @@
+package study.datajpa.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PageCountSupportTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    PageCountSupport pageCountSupport = new PageCountSupport(Duration.ofMinutes(1), meterRegistry);
+    AtomicInteger countQueries = new AtomicInteger();
+
+    long count() {
+        countQueries.incrementAndGet();
+        return 100;
+    }
+
+    @Test
+    public void lastPageSkipsCount() throws Exception {
+        // given : 다음 페이지가 없는 slice
+        Slice<String> slice = new SliceImpl<>(List.of("a", "b"), PageRequest.of(3, 5), false);
+
+        // when
+        Page<String> page = (Page<String>) pageCountSupport.toPage("key", CountStrategy.EXACT, slice, this::count);
+
+        // then
+        assertThat(page.getTotalElements()).isEqualTo(17);
+        assertThat(countQueries.get()).isEqualTo(0);
+    }
+
+    @Test
+    public void pagePastEndRunsCount() throws Exception {
+        // given : 100건인데 page=100, size=5 -> 빈 slice
+        Slice<String> slice = new SliceImpl<>(List.of(), PageRequest.of(100, 5), false);
+
+        // when
+        Page<String> page = (Page<String>) pageCountSupport.toPage("key", CountStrategy.EXACT, slice, this::count);
+
+        // then : offset(500) 이 아니라 실제 count
+        assertThat(page.getTotalElements()).isEqualTo(100);
+        assertThat(countQueries.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void emptyFirstPageSkipsCount() throws Exception {
+        // given
+        Slice<String> slice = new SliceImpl<>(List.of(), PageRequest.of(0, 5), false);
+
+        // when
+        Page<String> page = (Page<String>) pageCountSupport.toPage("key", CountStrategy.EXACT, slice, this::count);
+
+        // then
+        assertThat(page.getTotalElements()).isEqualTo(0);
+        assertThat(countQueries.get()).isEqualTo(0);
+    }
+
+    @Test
+    public void cachedCountIsReused() throws Exception {
+        // given
+        Slice<String> slice = new SliceImpl<>(List.of("a", "b"), PageRequest.of(0, 2), true);
+
+        // when
+        pageCountSupport.toPage("key", CountStrategy.CACHED, slice, this::count);
+        Page<String> page = (Page<String>) pageCountSupport.toPage("key", CountStrategy.CACHED, slice, this::count);
+
+        // then
+        assertThat(page.getTotalElements()).isEqualTo(100);
+        assertThat(countQueries.get()).isEqualTo(1);
+        assertThat(meterRegistry.counter("page.count.queries", "result", "cached").count()).isEqualTo(1);
+    }
+
+    @Test
+    public void noneReturnsSlice() throws Exception {
+        // given
+        Slice<String> slice = new SliceImpl<>(List.of("a", "b"), PageRequest.of(0, 2), true);
+
+        // when
+        Slice<String> result = pageCountSupport.toPage("key", CountStrategy.NONE, slice, this::count);
+
+        // then
+        assertThat(result).isNotInstanceOf(Page.class);
+        assertThat(countQueries.get()).isEqualTo(0);
+    }
+}
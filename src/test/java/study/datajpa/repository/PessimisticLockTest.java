@@ -0,0 +1,162 @@
+package study.datajpa.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.support.SqlStatisticsListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/*
+ 락은 트랜잭션끼리 경합해야 의미가 있으므로 테스트 트랜잭션 없이 커밋해서 넣고 끝나면 지운다. (AsyncRepositoryTest 와 같은 방식)
+*/
+@SpringBootTest
+class PessimisticLockTest {
+
+    private static final Set<String> USERNAMES = Set.of("claimA", "claimB", "claimC", "claimD", "claimE");
+    private static final int ROWS_PER_USERNAME = 20;
+    private static final int WORKERS = 8;
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    MeterRegistry meterRegistry;
+    @Autowired
+    SqlStatisticsListener sqlStatisticsListener;
+
+    TransactionTemplate transactionTemplate;
+    List<Member> members = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        for (String username : USERNAMES) {
+            for (int i = 0; i < ROWS_PER_USERNAME; i++) {
+                members.add(new Member(username, 0));
+            }
+        }
+        memberRepository.saveAll(members);
+    }
+
+    @AfterEach
+    void tearDown() {
+        memberRepository.deleteAllInBatch(members);
+    }
+
+    @Test
+    public void skipLockedClaimsEachRowOnce() throws Exception {
+        // given
+        ConcurrentLinkedQueue<Long> claimed = new ConcurrentLinkedQueue<>();
+        ExecutorService executor = Executors.newFixedThreadPool(WORKERS);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // when : worker 8개가 같은 username 집합에서 5개씩 가져가서 처리(age=1) 한다.
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < WORKERS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                boolean empty = false;
+                while (!empty) {
+                    empty = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                        List<Member> batch = memberRepository.findSkipLockedByUsernameInAndAgeOrderByIdAsc(
+                                USERNAMES, 0, PageRequest.of(0, 5));
+                        for (Member member : batch) {
+                            member.setAge(1);
+                            claimed.add(member.getId());
+                        }
+                        return batch.isEmpty();
+                    }));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // then : 빠짐없이, 한 번씩만
+        assertThat(claimed).hasSize(members.size());
+        assertThat(claimed).doesNotHaveDuplicates();
+        assertThat(meterRegistry.get("repository.lock.wait")
+                .tags("method", "findSkipLockedByUsernameInAndAgeOrderByIdAsc(Collection,int,Pageable)", "timeout", "skip-locked")
+                .timer().count()).isGreaterThan(0);
+        /* 일반 for update 로 줄 서서 처리된 게 아니라 skip locked 로 나갔는지 */
+        assertThat(executedSql("MemberRepository.findSkipLockedByUsernameInAndAgeOrderByIdAsc"))
+                .isNotEmpty()
+                .allSatisfy(sql -> assertThat(sql).containsIgnoringCase("for update skip locked"));
+    }
+
+    @Test
+    public void noWaitFailsFast() throws Exception {
+        // given : 다른 트랜잭션이 claimA 를 잡고 있다.
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<?> holder = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+            memberRepository.findLockByUsername("claimA");
+            locked.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertThat(locked.await(10, TimeUnit.SECONDS)).isTrue();
+        double timeoutsBefore = timeouts("findLockNoWaitByUsername(String)");
+
+        // when & then : lock timeout 까지 기다리지 않고 바로 실패한다.
+        try {
+            long start = System.nanoTime();
+            assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status ->
+                    memberRepository.findLockNoWaitByUsername("claimA")))
+                    .isInstanceOf(PessimisticLockingFailureException.class);
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(500));
+            assertThat(timeouts("findLockNoWaitByUsername(String)") - timeoutsBefore).isEqualTo(1);
+            assertThat(executedSql("MemberRepository.findLockNoWaitByUsername"))
+                    .isNotEmpty()
+                    .allSatisfy(sql -> assertThat(sql).containsIgnoringCase("for update nowait"));
+        } finally {
+            release.countDown();
+            holder.get(10, TimeUnit.SECONDS);
+            executor.shutdown();
+        }
+    }
+
+    /* 실제로 jdbc 로 나간 sql 중 이 repository 메서드에서 나간 것 (SqlStatisticsListener) */
+    private List<String> executedSql(String caller) {
+        return sqlStatisticsListener.snapshot(Integer.MAX_VALUE).stream()
+                .filter(statistics -> caller.equals(statistics.lastCaller()))
+                .map(SqlStatisticsListener.SqlStatistics::sql)
+                .toList();
+    }
+
+    private double timeouts(String method) {
+        Counter counter = meterRegistry.find("repository.lock.timeouts").tags("method", method).counter();
+        return counter == null ? 0 : counter.count(); // 메서드를 처음 부를 때 등록된다.
+    }
+}
@@ -0,0 +1,57 @@
+package study.datajpa.support;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+ 트랜잭션마다 값이 달라야 하므로 테스트 트랜잭션 없이 커밋해서 넣고 끝나면 지운다.
+*/
+@SpringBootTest
+class CachedAuditorAwareTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    List<Member> members = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        memberRepository.deleteAllInBatch(members);
+    }
+
+    @Test
+    public void auditorResolvedOncePerTransaction() {
+        // given
+        List<Member> batch = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            batch.add(new Member("auditBatch", i));
+        }
+
+        // when : 한 트랜잭션으로 10건, 그 다음 트랜잭션으로 1건
+        memberRepository.saveAllBatched(batch, 3);
+        members.addAll(batch);
+        Member single = new TransactionTemplate(transactionManager).execute(status ->
+                memberRepository.save(new Member("auditSingle", 0)));
+        members.add(single);
+
+        // then
+        String auditor = batch.get(0).getCreatedBy();
+        assertThat(auditor).isNotNull();
+        assertThat(batch).extracting(Member::getCreatedBy).containsOnly(auditor);
+        assertThat(batch).extracting(Member::getLastModifiedBy).containsOnly(auditor);
+        assertThat(single.getCreatedBy()).isNotNull().isNotEqualTo(auditor);
+    }
+}
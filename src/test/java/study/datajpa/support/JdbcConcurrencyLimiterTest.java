@@ -0,0 +1,105 @@
+package study.datajpa.support;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.jpa.domain.Specification;
+import study.datajpa.config.VirtualThreadConfig;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+ virtual 프로파일은 Java 21 이 있어야 뜨므로 limiter 연결(VirtualThreadConfig) 만 가져와서 permit 1 개로 확인한다.
+ permit 을 기다리는 호출은 트랜잭션 바깥에 있어야 한다 -> 커넥션을 잡지 않고 Semaphore 에서 기다린다.
+*/
+@SpringBootTest
+class JdbcConcurrencyLimiterTest {
+
+    @TestConfiguration
+    static class LimiterConfig {
+
+        @Bean
+        static JdbcConcurrencyLimiter jdbcConcurrencyLimiter() {
+            return new JdbcConcurrencyLimiter(1);
+        }
+
+        @Bean
+        static BeanPostProcessor jdbcConcurrencyLimiterPostProcessor(ObjectProvider<JdbcConcurrencyLimiter> limiter) {
+            return VirtualThreadConfig.jdbcConcurrencyLimiterPostProcessor(limiter);
+        }
+    }
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    JdbcConcurrencyLimiter limiter;
+    @Autowired
+    DataSource dataSource;
+
+    @Test
+    public void callersBeyondPermitsWaitOutsideTransaction() throws Exception {
+        // given : 첫번째 호출이 permit 과 커넥션을 잡은 채로 (spec 안에서) 멈춰 있다.
+        HikariPoolMXBean pool = DataSourceUnwrapper.unwrap(dataSource, HikariConfigMXBean.class, HikariDataSource.class)
+                .getHikariPoolMXBean();
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Specification<Member> blocking = (root, query, builder) -> {
+            entered.countDown();
+            awaitQuietly(release);
+            return null;
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<List<Member>> holder = executor.submit(() -> memberRepository.findAll(blocking));
+            assertThat(entered.await(10, TimeUnit.SECONDS)).isTrue();
+            int activeConnections = pool.getActiveConnections();
+
+            // when
+            Future<Long> waiter = executor.submit(() -> memberRepository.count());
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (limiter.waiting() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+
+            // then : 두번째 호출은 Semaphore 에서 기다리고, 커넥션은 더 잡지 않았다. (hikari 대기가 아니다)
+            assertThat(limiter.waiting()).isEqualTo(1);
+            assertThat(pool.getActiveConnections()).isEqualTo(activeConnections);
+            assertThat(pool.getThreadsAwaitingConnection()).isEqualTo(0);
+            assertThat(waiter).isNotDone();
+
+            release.countDown();
+            holder.get(10, TimeUnit.SECONDS);
+            assertThat(waiter.get(10, TimeUnit.SECONDS)).isNotNegative();
+            assertThat(limiter.availablePermits()).isEqualTo(1);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package study.datajpa.support;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Transactional
+class LazyLoadGuardModuleTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    ObjectMapper objectMapper;
+
+    Member member;
+
+    @BeforeEach
+    void setUp() {
+        Team team = new Team("guardTeam");
+        em.persist(team);
+        em.persist(new Member("guardMember", 0, team));
+        em.flush();
+        em.clear();
+        member = memberRepository.findByUsername("guardMember").get(0);
+    }
+
+    @Test
+    public void failFast() throws Exception {
+        // when & then : 기본 모드(FAIL) 는 지연 로딩 select 없이 바로 실패
+        assertThatThrownBy(() -> objectMapper.writeValueAsString(member))
+                .hasRootCauseInstanceOf(LazyLoadGuardException.class)
+                .hasMessageContaining("Member.team");
+        assertThat(Hibernate.isInitialized(member.getTeam())).isFalse();
+    }
+
+    @Test
+    public void idsOnly() throws Exception {
+        // given
+        LazyLoadGuardProperties properties = new LazyLoadGuardProperties();
+        properties.setMode(LazyLoadGuardProperties.Mode.IDS);
+        ObjectMapper mapper = JsonMapper.builder()
+                .findAndAddModules()
+                .addModule(new LazyLoadGuardModule(properties, new SimpleMeterRegistry()))
+                .build();
+
+        // when
+        String json = mapper.writeValueAsString(member);
+
+        // then
+        assertThat(json).contains("\"team\":{\"id\":" + member.getTeam().getId() + "}");
+        assertThat(Hibernate.isInitialized(member.getTeam())).isFalse();
+    }
+}
@@ -0,0 +1,77 @@
+package study.datajpa.support;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "app.n-plus-one.enabled=true",
+        "app.n-plus-one.threshold=3",
+        "app.n-plus-one.fail-on-detection=true"
+})
+@Transactional
+class NPlusOneDetectorTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 3; i++) {
+            Team team = new Team("nPlusOneTeam" + i);
+            em.persist(team);
+            em.persist(new Member("nPlusOne" + i, 0, team));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void lazyLoadingInLoopIsDetected() throws Exception {
+        // when & then : 회원을 하나씩 조회하고 바로 팀 프록시를 초기화하면, batch fetch 로도 묶이지 않고 같은 select 가 3번 나간다.
+        assertThatThrownBy(() -> {
+            for (String username : List.of("nPlusOne0", "nPlusOne1", "nPlusOne2")) {
+                Member member = memberRepository.findByUsername(username).get(0);
+                member.getTeam().getName();
+            }
+        })
+                .isInstanceOf(NPlusOneException.class)
+                .hasMessageContaining("Member.team")
+                .hasMessageContaining("MemberRepository.findByUsername");
+        assertThat(meterRegistry.find("n-plus-one.detections")
+                .tags("table", "team", "repository", "MemberRepository.findByUsername", "association", "Member.team")
+                .counter()).isNotNull();
+    }
+
+    @Test
+    public void fetchJoinIsNotDetected() throws Exception {
+        // given
+        List<Member> members = memberRepository.findMemberFetchJoin();
+
+        // when & then
+        assertThatCode(() -> members.forEach(member -> {
+            if (member.getTeam() != null) {
+                member.getTeam().getName();
+            }
+        })).doesNotThrowAnyException();
+    }
+}
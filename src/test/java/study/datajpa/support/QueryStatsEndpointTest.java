@@ -0,0 +1,98 @@
+package study.datajpa.support;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.Comparator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/* 모든 sql 이 느린 쿼리가 되도록 threshold 0 */
+@SpringBootTest(properties = {"app.query-stats.slow-threshold=0ms", "app.query-stats.reset-enabled=true"})
+@Transactional
+class QueryStatsEndpointTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    QueryStatsEndpoint queryStatsEndpoint;
+    @Autowired
+    MeterRegistry meterRegistry;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+    @Autowired
+    SqlStatisticsListener sqlStatisticsListener;
+
+    @Test
+    public void reportAndReset() {
+        // given
+        queryStatsEndpoint.reset();
+        memberRepository.saveAndFlush(new Member("statsMember", 10));
+
+        // when
+        memberRepository.findByUsername("statsMember");
+        memberRepository.findByUsername("statsMember");
+        QueryStatsEndpoint.QueryStatsReport report = queryStatsEndpoint.report(100);
+
+        // then : jpql 통계 + sql 통계(호출한 repository 메서드) + 엔티티 통계
+        assertThat(report.summary().statisticsEnabled()).isTrue();
+        assertThat(report.queries())
+                .filteredOn(row -> row.query().contains("m.username"))
+                .anySatisfy(row -> {
+                    assertThat(row.executions()).isEqualTo(2);
+                    assertThat(row.rows()).isEqualTo(2);
+                });
+        assertThat(report.sql())
+                .filteredOn(row -> row.lastCaller().equals("MemberRepository.findByUsername"))
+                .isNotEmpty()
+                .allSatisfy(row -> assertThat(row.executions()).isEqualTo(2));
+        assertThat(report.entities())
+                .anySatisfy(row -> assertThat(row.inserts()).isGreaterThanOrEqualTo(1));
+        assertThat(meterRegistry.get("query.slow").tag("caller", "MemberRepository.findByUsername")
+                .counter().count()).isGreaterThanOrEqualTo(2);
+
+        // when : reset
+        queryStatsEndpoint.reset();
+
+        // then
+        QueryStatsEndpoint.QueryStatsReport afterReset = queryStatsEndpoint.report(100);
+        assertThat(afterReset.summary().queryExecutions()).isZero();
+        assertThat(afterReset.sql()).isEmpty();
+    }
+
+    @Test
+    public void resetIsOptIn() {
+        // given : 기본값 (app.query-stats.reset-enabled=false)
+        QueryStatsEndpoint endpoint = new QueryStatsEndpoint(entityManagerFactory, sqlStatisticsListener, new QueryStatsProperties());
+        memberRepository.saveAndFlush(new Member("statsOptIn", 10));
+
+        // when & then
+        assertThatThrownBy(endpoint::reset)
+                .isInstanceOf(ResponseStatusException.class)
+                .satisfies(e -> assertThat(((ResponseStatusException) e).getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN));
+        assertThat(endpoint.report(100).summary().queryExecutions()).isPositive();
+    }
+
+    @Test
+    public void queriesAreSortedByTotalTime() {
+        // given
+        memberRepository.saveAndFlush(new Member("statsSort", 10));
+        memberRepository.findByUsername("statsSort");
+
+        // when
+        QueryStatsEndpoint.QueryStatsReport report = queryStatsEndpoint.report(100);
+
+        // then
+        assertThat(report.queries())
+                .isSortedAccordingTo(Comparator.comparingLong(QueryStatsEndpoint.QueryRow::totalMillis).reversed());
+    }
+}
@@ -0,0 +1,95 @@
+package study.datajpa.support;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Example;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberJpaRepository;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.MemberSpec;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+@Rollback
+class RepositoryMetricsTest {
+
+    @Autowired
+    MeterRegistry meterRegistry;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Test
+    public void springDataRepository() {
+        // given
+        memberRepository.saveAll(List.of(new Member("metricsA", 706), new Member("metricsB", 706)));
+
+        double rowsBefore = rows("findUser(String,int)");
+        double countRowsBefore = rows("count()");
+
+        // when
+        memberRepository.findByUsernameAndAgeGreaterThan("metricsA", 705);
+        memberRepository.findUser("metricsA", 706);
+        memberRepository.findByUsername("metricsB");
+        memberRepository.count();
+        memberRepository.findAll(MemberSpec.age(706));
+        memberRepository.findAll(Example.of(new Member("metricsA", 706)));
+
+        // then
+        assertThat(timer("MemberRepository", "findByUsernameAndAgeGreaterThan(String,int)").getId().getTag("kind")).isEqualTo("derived");
+        assertThat(timer("MemberRepository", "findUser(String,int)").getId().getTag("kind")).isEqualTo("query");
+        assertThat(timer("MemberRepository", "findByUsername(String)").getId().getTag("kind")).isEqualTo("named");
+        assertThat(timer("MemberRepository", "saveAll(Iterable)").getId().getTag("kind")).isEqualTo("crud");
+
+        assertThat(rows("findUser(String,int)") - rowsBefore).isEqualTo(1);
+        assertThat(rows("count()") - countRowsBefore).isEqualTo(1); // count 값이 아니라 결과 하나
+
+        /* MemberRepositoryImpl 이 덮어쓴 메서드도 custom 이 아니라 조회 종류로 */
+        assertThat(timer("MemberRepository", "findAll(Specification)").getId().getTag("kind")).isEqualTo("specification");
+        assertThat(timer("MemberRepository", "findAll(Example)").getId().getTag("kind")).isEqualTo("example");
+
+        /* flush + select 가 나가야 한다 */
+        DistributionSummary statements = meterRegistry.get("repository.invocation.statements")
+                .tags("repository", "MemberRepository", "method", "findByUsernameAndAgeGreaterThan(String,int)").summary();
+        assertThat(statements.totalAmount()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    public void handWrittenRepository() {
+        // given
+        memberJpaRepository.save(new Member("metricsC", 707));
+
+        // when
+        List<Member> result = memberJpaRepository.findByUsernameAndAgeGreaterThan("metricsC", 706);
+
+        // then
+        assertThat(result).hasSize(1);
+        Timer timer = timer("MemberJpaRepository", "findByUsernameAndAgeGreaterThan(String,int)");
+        assertThat(timer.getId().getTag("kind")).isEqualTo("jpa");
+        assertThat(timer.count()).isGreaterThanOrEqualTo(1);
+    }
+
+    /* 같은 context 를 쓰는 다른 테스트에서도 기록되므로 전후 차이로 비교한다. */
+    private double rows(String method) {
+        DistributionSummary summary = meterRegistry.find("repository.invocation.rows")
+                .tags("repository", "MemberRepository", "method", method).summary();
+        return summary == null ? 0 : summary.totalAmount();
+    }
+
+    private Timer timer(String repository, String method) {
+        return meterRegistry.get("repository.invocations")
+                .tags("repository", repository, "method", method, "outcome", "success")
+                .timer();
+    }
+}
@@ -0,0 +1,86 @@
+package study.datajpa.support;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+ 스레드마다 다른 블록에서 id 를 받으므로 커밋해서 넣고 끝나면 지운다. (PessimisticLockTest 와 같은 방식)
+*/
+@SpringBootTest
+class StripedSequenceGeneratorTest {
+
+    private static final int WRITERS = 8;
+    private static final int MEMBERS_PER_WRITER = 120; // 블록(50) 경계를 여러 번 넘게
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+
+    ConcurrentLinkedQueue<Member> saved = new ConcurrentLinkedQueue<>();
+    List<Team> teams = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        memberRepository.deleteAllInBatch(saved);
+        teamRepository.deleteAllInBatch(teams);
+    }
+
+    @Test
+    public void concurrentWritersGetUniqueIds() throws Exception {
+        // given
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // when : writer 8개가 동시에 한 건씩 save (트랜잭션도 한 건씩)
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < WRITERS; i++) {
+            int writer = i;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < MEMBERS_PER_WRITER; j++) {
+                    saved.add(memberRepository.save(new Member("seqWriter" + writer, j)));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // then
+        assertThat(saved).hasSize(WRITERS * MEMBERS_PER_WRITER);
+        assertThat(saved).extracting(Member::getId).doesNotContainNull().doesNotHaveDuplicates();
+        assertThat(memberRepository.findAllById(saved.stream().map(Member::getId).toList()))
+                .hasSize(WRITERS * MEMBERS_PER_WRITER);
+    }
+
+    @Test
+    public void sameThreadIdsIncrease() {
+        // when
+        teams.add(teamRepository.save(new Team("seqTeamA")));
+        teams.add(teamRepository.save(new Team("seqTeamB")));
+
+        // then : 같은 스레드는 같은 stripe 를 쓰므로 커진다. (블록이 바뀌어도 새 블록이 더 뒤에 있다)
+        assertThat(teams.get(1).getId()).isGreaterThan(teams.get(0).getId());
+    }
+}
@@ -0,0 +1,45 @@
+package study.datajpa.support;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class TransactionClockTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    TransactionClock transactionClock;
+
+    @Test
+    public void sameInstantWithinTransaction() throws Exception {
+        // given
+        Team team = new Team("clockTeam");
+        em.persist(team);
+        Thread.sleep(5); // 시계를 매번 읽으면 시각이 달라지도록
+
+        // when : JpaBaseEntity(리스너) 와 BaseTimeEntity(auditing) 를 섞어서 flush
+        Member member = new Member("clockMember", 0, team);
+        em.persist(member);
+        em.flush();
+
+        // then
+        assertThat(team.getCreateDate()).isEqualTo(team.getUpdateDate());
+        assertThat(member.getCreateDate()).isEqualTo(team.getCreateDate());
+        assertThat(member.getLastModifiedDate()).isEqualTo(team.getCreateDate());
+        assertThat(transactionClock.now()).isEqualTo(team.getCreateDate());
+        assertThat(team.getCreateDate()).isEqualTo(team.getCreateDate().truncatedTo(ChronoUnit.MICROS));
+    }
+}